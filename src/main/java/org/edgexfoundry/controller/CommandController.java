@@ -27,6 +27,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -36,14 +37,17 @@ public class CommandController {
   @Autowired
   private CommandHandler command;
 
+  // maxAge: milliseconds a cached value may be returned instead of querying the device, 0 to
+  // always query; the configured max age of the command applies without it
   @RequestMapping(value = "/{deviceId}/{cmd}",
       method = {RequestMethod.PUT, RequestMethod.POST, RequestMethod.GET})
   public Callable<Map<String, String>> getCommand(@PathVariable String deviceId,
-      @PathVariable String cmd, @RequestBody(required = false) String arguments) {
+      @PathVariable String cmd, @RequestBody(required = false) String arguments,
+      @RequestParam(required = false) Long maxAge) {
     Callable<Map<String, String>> callable = new Callable<Map<String, String>>() {
       @Override
       public Map<String, String> call() throws Exception {
-        return command.getResponse(deviceId, cmd, arguments);
+        return command.getResponse(deviceId, cmd, arguments, maxAge);
       }
     };
     return callable;
@@ -52,11 +56,12 @@ public class CommandController {
   @RequestMapping(value = "/all/{cmd}",
       method = {RequestMethod.PUT, RequestMethod.POST, RequestMethod.GET})
   public Callable<Map<String, String>> getCommands(@PathVariable String cmd,
-      @RequestBody(required = false) String arguments) {
+      @RequestBody(required = false) String arguments,
+      @RequestParam(required = false) Long maxAge) {
     Callable<Map<String, String>> callable = new Callable<Map<String, String>>() {
       @Override
       public Map<String, String> call() throws Exception {
-        return command.getResponses(cmd, arguments);
+        return command.getResponses(cmd, arguments, maxAge);
       }
     };
     return callable;
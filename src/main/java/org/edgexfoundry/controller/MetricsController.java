@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.controller;
+
+import org.edgexfoundry.domain.MetricsStatus;
+import org.edgexfoundry.metrics.MetricsRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/metrics")
+public class MetricsController {
+
+  @Autowired
+  MetricsRegistry metrics;
+
+  @RequestMapping(method = RequestMethod.GET)
+  public @ResponseBody MetricsStatus getMetrics() {
+    return metrics.getStatus();
+  }
+
+  @RequestMapping(path = "/prometheus", method = RequestMethod.GET,
+      produces = "text/plain; version=0.0.4")
+  public @ResponseBody String getPrometheus() {
+    return metrics.getPrometheus();
+  }
+}
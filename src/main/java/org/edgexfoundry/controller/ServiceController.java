@@ -18,8 +18,19 @@
 
 package org.edgexfoundry.controller;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.edgexfoundry.data.ObjectStore;
+import org.edgexfoundry.domain.ConnectionStatus;
+import org.edgexfoundry.domain.IngestLaneStatus;
+import org.edgexfoundry.domain.ThrottleStatus;
 import org.edgexfoundry.handler.MqttHandler;
+import org.edgexfoundry.mqtt.messaging.CommandResponseListener;
+import org.edgexfoundry.mqtt.messaging.DiscoveryListener;
+import org.edgexfoundry.mqtt.messaging.IncomingListener;
+import org.edgexfoundry.mqtt.messaging.IngestLimiter;
+import org.edgexfoundry.mqtt.messaging.IngestScheduler;
 import org.edgexfoundry.support.logging.client.EdgeXLogger;
 import org.edgexfoundry.support.logging.client.EdgeXLoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -42,6 +53,21 @@ public class ServiceController {
   @Autowired
   MqttHandler handler;
 
+  @Autowired
+  IngestScheduler ingest;
+
+  @Autowired
+  IngestLimiter limiter;
+
+  @Autowired
+  IncomingListener incomingListener;
+
+  @Autowired
+  CommandResponseListener responseListener;
+
+  @Autowired
+  DiscoveryListener discoveryListener;
+
   @RequestMapping(path = "/debug/transformData/{transformData}", method = RequestMethod.GET)
   public @ResponseBody String setTransformData(@PathVariable Boolean transformData) {
     logger.info("Setting transform data to: " + transformData);
@@ -55,4 +81,25 @@ public class ServiceController {
     handler.scan();
     return "Running discovery";
   }
+
+  @RequestMapping(path = "/debug/ingest", method = RequestMethod.GET)
+  public @ResponseBody List<IngestLaneStatus> getIngestStatus() {
+    return ingest.getStatus();
+  }
+
+  @RequestMapping(path = "/debug/throttle", method = RequestMethod.GET)
+  public @ResponseBody List<ThrottleStatus> getThrottleStatus() {
+    return limiter.getStatus();
+  }
+
+  @RequestMapping(path = "/debug/connections", method = RequestMethod.GET)
+  public @ResponseBody List<ConnectionStatus> getConnectionStatus() {
+    List<ConnectionStatus> status = new ArrayList<>();
+    status.add(incomingListener.getConnectionStatus());
+    status.add(responseListener.getConnectionStatus());
+    if (discoveryListener.isEnabled()) {
+      status.add(discoveryListener.getConnectionStatus());
+    }
+    return status;
+  }
 }
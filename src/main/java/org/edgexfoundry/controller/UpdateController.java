@@ -24,6 +24,7 @@ import org.edgexfoundry.domain.meta.ActionType;
 import org.edgexfoundry.domain.meta.CallbackAlert;
 import org.edgexfoundry.exception.controller.ClientException;
 import org.edgexfoundry.exception.controller.NotFoundException;
+import org.edgexfoundry.handler.CallbackQueue;
 import org.edgexfoundry.handler.UpdateHandler;
 import org.edgexfoundry.support.logging.client.EdgeXLogger;
 import org.edgexfoundry.support.logging.client.EdgeXLoggerFactory;
@@ -41,6 +42,8 @@ public class UpdateController {
   @Autowired
   UpdateHandler update;
 
+  @Autowired
+  CallbackQueue queue;
 
   @RequestMapping("/${service.callback}")
   public void getCallback(HttpServletRequest request,
@@ -55,32 +58,35 @@ public class UpdateController {
       throw new ClientException("Callback parameters were null");
     }
 
+    // acknowledge now and apply in the background; the latest callback for an entity wins
+    String key = actionType + ":" + id;
+
     if (ActionType.DEVICE.equals(actionType) && method.equals("POST")) {
-      addDevice(id);
+      queue.submit(key, () -> addDevice(id));
     }
 
     if (ActionType.DEVICE.equals(actionType) && method.equals("PUT")) {
-      updateDevice(id);
+      queue.submit(key, () -> updateDevice(id));
     }
 
     if (ActionType.DEVICE.equals(actionType) && method.equals("DELETE")) {
-      deleteDevice(id);
+      queue.submit(key, () -> deleteDevice(id));
     }
 
     if (ActionType.PROFILE.equals(actionType) && method.equals("PUT")) {
-      updateProfile(id);
+      queue.submit(key, () -> updateProfile(id));
     }
 
     if (ActionType.PROVISIONWATCHER.equals(actionType) && method.equals("POST")) {
-      addWatcher(id);
+      queue.submit(key, () -> addWatcher(id));
     }
 
     if (ActionType.PROVISIONWATCHER.equals(actionType) && method.equals("PUT")) {
-      updateWatcher(id);
+      queue.submit(key, () -> updateWatcher(id));
     }
 
     if (ActionType.PROVISIONWATCHER.equals(actionType) && method.equals("DELETE")) {
-      deleteWatcher(id);
+      queue.submit(key, () -> deleteWatcher(id));
     }
 
   }
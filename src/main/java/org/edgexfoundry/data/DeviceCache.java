@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.data;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.edgexfoundry.domain.ReadingValue;
+import org.edgexfoundry.domain.ReportFilter;
+
+/**
+ * Cached readings of a single device. Each device gets its own shard so writers for different
+ * devices never touch the same map, and readers never take a lock.
+ */
+class DeviceCache {
+
+  // object name to reading history
+  private final Map<String, ReadingHistory> objects = new ConcurrentHashMap<>();
+
+  // operation key to the values of the last response
+  private final Map<String, Response> responses = new ConcurrentHashMap<>();
+
+  // object name to the value last reported to core data, for objects with a report filter
+  private final Map<String, Reported> reported = new ConcurrentHashMap<>();
+
+  private final int cacheSize;
+
+  DeviceCache(int cacheSize) {
+    this.cacheSize = cacheSize;
+  }
+
+  ReadingHistory history(String objectName) {
+    ReadingHistory history = objects.get(objectName);
+    if (history == null) {
+      history = objects.computeIfAbsent(objectName, name -> new ReadingHistory(cacheSize));
+    }
+    return history;
+  }
+
+  ReadingHistory getHistory(String objectName) {
+    return objects.get(objectName);
+  }
+
+  void putResponses(String operationId, Response response) {
+    responses.put(operationId, response);
+  }
+
+  Response getResponses(String operationId) {
+    return responses.get(operationId);
+  }
+
+  /**
+   * @return true if the value passes the filter, in which case it becomes the last reported value
+   */
+  boolean report(String objectName, ReportFilter filter, ReadingValue value, long now) {
+    if (filter == null) {
+      return true;
+    }
+
+    Reported last = reported.get(objectName);
+    if (last == null) {
+      last = reported.computeIfAbsent(objectName, name -> new Reported());
+    }
+
+    synchronized (last) {
+      if (!filter.passes(last.value, last.time, value, now)) {
+        return false;
+      }
+      last.value = value;
+      last.time = now;
+      return true;
+    }
+  }
+
+  private static class Reported {
+    private ReadingValue value;
+    private long time;
+  }
+
+  // object names and values of one response, in operation order; never modified once stored
+  static class Response {
+    final String[] names;
+    final ReadingValue[] values;
+
+    Response(int size) {
+      names = new String[size];
+      values = new ReadingValue[size];
+    }
+  }
+}
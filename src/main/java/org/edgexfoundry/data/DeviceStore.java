@@ -18,14 +18,20 @@
 
 package org.edgexfoundry.data;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import org.edgexfoundry.controller.AddressableClient;
 import org.edgexfoundry.controller.DeviceClient;
 import org.edgexfoundry.controller.DeviceProfileClient;
+import org.edgexfoundry.domain.CompiledProfile;
 import org.edgexfoundry.domain.meta.Addressable;
 import org.edgexfoundry.domain.meta.AdminState;
 import org.edgexfoundry.domain.meta.Device;
@@ -33,6 +39,7 @@ import org.edgexfoundry.domain.meta.DeviceProfile;
 import org.edgexfoundry.domain.meta.OperatingState;
 import org.edgexfoundry.exception.controller.NotFoundException;
 import org.edgexfoundry.handler.MqttHandler;
+import org.edgexfoundry.metrics.MetricsRegistry;
 import org.edgexfoundry.support.logging.client.EdgeXLogger;
 import org.edgexfoundry.support.logging.client.EdgeXLoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -61,26 +68,90 @@ public class DeviceStore {
   @Autowired
   private ProfileStore profiles;
 
+  @Autowired
+  private ObjectStore objectCache;
+
+  @Autowired
+  private MetricsRegistry metrics;
+
   @Value("${service.name}")
   private String serviceName;
 
-  // cache for devices
-  private Map<String, Device> devices = new HashMap<>();
+  // cache for devices by name and by id; point lookups never lock
+  private final Map<String, Device> devices = new ConcurrentHashMap<>();
+  private final Map<String, Device> devicesById = new ConcurrentHashMap<>();
+
+  // held while the device cache and profile tables change, so discovery can add devices in
+  // parallel while their metadata calls overlap
+  private final Object registration = new Object();
+
+  // bumped on every change; the iteration snapshot is rebuilt when it is out of date
+  private final AtomicLong version = new AtomicLong();
+  private volatile Snapshot snapshot = new Snapshot(-1, Collections.emptyMap());
+
+  // told of each device once it is no longer managed, so services keeping state per device can
+  // drop it without this store depending on them
+  private final List<Consumer<Device>> removalListeners = new CopyOnWriteArrayList<>();
+
+  // must hold the registration lock
+  private void register(Device device) {
+    Device previous = device.getId() == null ? null : devicesById.get(device.getId());
+    if (previous != null && !previous.getName().equals(device.getName())) {
+      // renamed in metadata, drop the entry under the old name
+      devices.remove(previous.getName());
+      profiles.removeDevice(previous);
+    }
+
+    Device replaced = devices.put(device.getName(), device);
+    if (replaced != null && replaced.getId() != null && !replaced.getId().equals(device.getId())) {
+      devicesById.remove(replaced.getId());
+    }
+    if (device.getId() != null) {
+      devicesById.put(device.getId(), device);
+    }
+    version.incrementAndGet();
+  }
+
+  // must hold the registration lock
+  private Device unregister(String deviceName) {
+    Device removed = devices.remove(deviceName);
+    if (removed != null && removed.getId() != null) {
+      devicesById.remove(removed.getId(), removed);
+    }
+    version.incrementAndGet();
+    return removed;
+  }
+
+  public void addRemovalListener(Consumer<Device> listener) {
+    removalListeners.add(listener);
+  }
 
   public boolean remove(Device device) {
     logger.debug("Removing managed device:  " + device.getName());
-    if (devices.containsKey(device.getName())) {
-      devices.remove(device.getName());
+    Device removed;
+    synchronized (registration) {
+      removed = unregister(device.getName());
+    }
+
+    if (removed != null) {
       mqtt.disconnectDevice(device);
       deviceClient.updateOpState(device.getId(), OperatingState.DISABLED.name());
-      profiles.removeDevice(device);
+      synchronized (registration) {
+        profiles.removeDevice(device);
+      }
+      if (device.getId() != null) {
+        objectCache.remove(device.getId());
+      }
+      metrics.removeDevice(device.getName());
+      for (Consumer<Device> listener : removalListeners) {
+        listener.accept(device);
+      }
     }
     return true;
   }
 
   public boolean remove(String deviceId) {
-    Device d = devices.values().stream().filter(device -> device.getId().equals(deviceId)).findAny()
-        .orElse(null);
+    Device d = getDeviceById(deviceId);
 
     if (d != null) {
       remove(d);
@@ -95,9 +166,10 @@ public class DeviceStore {
   }
 
   public boolean add(Device device) {
-    if (devices.containsKey(device.getName())) {
-      devices.remove(device.getName());
-      profiles.removeDevice(device);
+    synchronized (registration) {
+      if (unregister(device.getName()) != null) {
+        profiles.removeDevice(device);
+      }
     }
 
     logger.info("Adding managed device:  " + device.getName());
@@ -150,8 +222,12 @@ public class DeviceStore {
       }
     }
 
-    profiles.addDevice(device);
-    devices.put(device.getName(), device);
+    // compile outside the lock, the profile and descriptor calls are slow
+    CompiledProfile compiled = profiles.compile(device);
+    synchronized (registration) {
+      profiles.addDevice(device, compiled);
+      register(device);
+    }
     return device;
   }
 
@@ -178,12 +254,25 @@ public class DeviceStore {
     return false;
   }
 
+  /**
+   * @return an unmodifiable snapshot of the devices by name, safe to iterate while devices change
+   */
   public Map<String, Device> getDevices() {
-    return devices;
+    Snapshot current = snapshot;
+    long currentVersion = version.get();
+    if (current.version != currentVersion) {
+      current = new Snapshot(currentVersion, new HashMap<>(devices));
+      snapshot = current;
+    }
+    return current.devices;
   }
 
   public Map<String, Device> initialize(String id) {
-    devices = new HashMap<>();
+    synchronized (registration) {
+      devices.clear();
+      devicesById.clear();
+      version.incrementAndGet();
+    }
     watchers.initialize(id);
     mqtt.initialize();
     List<Device> metaDevices = deviceClient.devicesForService(id);
@@ -224,20 +313,11 @@ public class DeviceStore {
   }
 
   public Device getDevice(String deviceName) {
-    if (devices != null) {
-      return devices.get(deviceName);
-    } else {
-      return null;
-    }
+    return deviceName == null ? null : devices.get(deviceName);
   }
 
   public Device getDeviceById(String deviceId) {
-    if (devices != null) {
-      return devices.values().stream().filter(device -> device.getId().equals(deviceId)).findAny()
-          .orElse(null);
-    }
-
-    return null;
+    return deviceId == null ? null : devicesById.get(deviceId);
   }
 
   public boolean isDeviceLocked(String deviceId) {
@@ -271,14 +351,37 @@ public class DeviceStore {
       return true;
     }
 
-    boolean success = true;
-    for (Device device : devices.entrySet().stream().map(d -> d.getValue())
+    List<Device> affected = getDevices().values().stream()
         .filter(d -> profile.getName().equals(d.getProfile().getName()))
-        .collect(Collectors.toList())) {
-      // update all devices that use the profile
-      device.setProfile(profile);
-      success &= update(device.getId());
+        .collect(Collectors.toList());
+
+    if (affected.isEmpty()) {
+      return true;
+    }
+
+    // compile the profile once, outside the lock, and re-bind the devices in place; they are
+    // already in metadata and initialized, so neither is repeated
+    try {
+      CompiledProfile compiled = profiles.compile(profile, affected.get(0));
+      synchronized (registration) {
+        profiles.updateProfile(profile, affected, compiled);
+      }
+    } catch (Exception e) {
+      logger.error("Could not update profile " + profile.getName() + ": " + e.getMessage());
+      return false;
+    }
+
+    logger.info("Updated profile " + profile.getName() + " for " + affected.size() + " devices");
+    return true;
+  }
+
+  private static class Snapshot {
+    private final long version;
+    private final Map<String, Device> devices;
+
+    Snapshot(long version, Map<String, Device> devices) {
+      this.version = version;
+      this.devices = Collections.unmodifiableMap(devices);
     }
-    return success;
   }
 }
@@ -19,24 +19,30 @@
 package org.edgexfoundry.data;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.edgexfoundry.domain.Aggregation;
+import org.edgexfoundry.domain.CompiledOperation;
 import org.edgexfoundry.domain.MqttObject;
+import org.edgexfoundry.domain.ReadingValue;
 import org.edgexfoundry.domain.core.Reading;
 import org.edgexfoundry.domain.meta.Device;
 import org.edgexfoundry.domain.meta.OperatingState;
 import org.edgexfoundry.domain.meta.PropertyValue;
 import org.edgexfoundry.domain.meta.ResourceOperation;
-import org.edgexfoundry.exception.controller.NotFoundException;
 import org.edgexfoundry.handler.CoreDataMessageHandler;
+import org.edgexfoundry.metrics.MetricsRegistry;
+import org.edgexfoundry.metrics.MetricsRegistry.Counter;
+import org.edgexfoundry.metrics.MetricsRegistry.Stage;
 import org.edgexfoundry.mqtt.ObjectTransform;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
 @Repository
@@ -54,12 +60,18 @@ public class ObjectStore {
   @Autowired
   private CoreDataMessageHandler processor;
 
+  @Autowired
+  private MetricsRegistry metrics;
+
+  @Autowired
+  private ReadingAggregator aggregator;
+
+  // number of readings kept per device object
   @Value("${data.cache.size:1}")
   private int cacheSize;
 
-  private Map<String, Map<String, List<String>>> objectCache = new HashMap<>();
-
-  private Map<String, Map<String, List<Reading>>> responseCache = new HashMap<>();
+  // device id to that device's cached readings and responses
+  private Map<String, DeviceCache> deviceCache = new ConcurrentHashMap<>();
 
   public Boolean getTransformData() {
     return transformData;
@@ -70,118 +82,256 @@ public class ObjectStore {
   }
 
   public void put(Device device, ResourceOperation operation, String value) {
+    put(device, operation, value, false);
+  }
+
+  /**
+   * @param filtered pass the values to the aggregations or report filters of their objects
+   * @return false if every value was aggregated or held back by its filter
+   */
+  private boolean put(Device device, ResourceOperation operation, String value,
+      boolean filtered) {
     if (value == null || value.equals("") || value.equals("{}")) {
-      return;
+      // nothing new, the last response is reported as before
+      return true;
     }
 
-    List<MqttObject> objectsList = createObjectsList(operation, device);
-    String deviceId = device.getId();
-    List<Reading> readings = new ArrayList<>();
-
-    for (MqttObject obj : objectsList) {
+    long start = System.nanoTime();
+    long now = System.currentTimeMillis();
+    boolean reported = !filtered;
+    long transforming = 0;
+    CompiledOperation compiled = profiles.getOperation(device, operation);
+    List<MqttObject> objectsList = compiled.getObjects();
+    DeviceCache cache = getDeviceCache(device.getId());
+    DeviceCache.Response response = new DeviceCache.Response(objectsList.size());
+
+    for (int i = 0; i < objectsList.size(); i++) {
+      MqttObject obj = objectsList.get(i);
       String objectName = obj.getName();
-      String result = transformResult(value, obj, device, operation);
+      long transformStart = System.nanoTime();
+      ReadingValue result = transformResult(value, obj, device, operation);
+      transforming += System.nanoTime() - transformStart;
 
-      Reading reading = processor.buildReading(objectName, result, device.getName());
-      readings.add(reading);
+      response.names[i] = objectName;
+      response.values[i] = result;
 
-      synchronized (objectCache) {
-        if (objectCache.get(deviceId) == null) {
-          objectCache.put(deviceId, new HashMap<String, List<String>>());
+      cache.history(objectName).add(result, now);
+      if (filtered) {
+        if (aggregate(device, obj, result, now)) {
+          continue;
         }
-
-        if (objectCache.get(deviceId).get(objectName) == null) {
-          objectCache.get(deviceId).put(objectName, new ArrayList<String>());
+        if (cache.report(objectName, obj.getFilter(), result, now)) {
+          reported = true;
+        } else {
+          metrics.increment(Counter.READINGS_FILTERED);
         }
+      }
+    }
 
-        objectCache.get(deviceId).get(objectName).add(0, result);
+    cache.putResponses(compiled.getKey(), response);
+    recordPut(start, transforming);
+    return reported;
+  }
 
-        if (objectCache.get(deviceId).get(objectName).size() == cacheSize) {
-          objectCache.get(deviceId).get(objectName).remove(cacheSize - 1);
-        }
-      }
+  // numeric values of objects with an aggregation are summarised instead of reported
+  private boolean aggregate(Device device, MqttObject obj, ReadingValue value, long now) {
+    Aggregation aggregation = obj.getAggregation();
+    if (aggregation == null || !value.isNumeric()) {
+      return false;
     }
 
-    String operationId =
-        objectsList.stream().map(o -> o.getName()).collect(Collectors.toList()).toString();
+    aggregator.add(device, obj.getName(), aggregation, value, now);
+    metrics.increment(Counter.READINGS_AGGREGATED);
+    return true;
+  }
 
-    synchronized (responseCache) {
-      if (responseCache.get(deviceId) == null) {
-        responseCache.put(deviceId, new HashMap<String, List<Reading>>());
-      }
+  // split the time of a put between the transforms and the cache writes
+  private void recordPut(long start, long transforming) {
+    metrics.recordNanos(Stage.TRANSFORM, transforming);
+    metrics.recordNanos(Stage.STORE, System.nanoTime() - start - transforming);
+  }
 
-      responseCache.get(deviceId).put(operationId, readings);
+  /**
+   * Store a value from an incoming message. A JSON array sent to an operation with array
+   * attributes is stored as a batch of samples; anything else is a single value, checked against
+   * the report filters of the operation's objects. Numeric values of objects with an aggregation
+   * go to their windows in either case.
+   *
+   * @return false if the value should not be reported to core data
+   */
+  public boolean put(Device device, ResourceOperation operation, JsonElement value) {
+    if (value.isJsonArray() && profiles.getOperation(device, operation).isArray()) {
+      return putArray(device, operation, value.getAsJsonArray());
     }
+    return put(device, operation, value.getAsString(), true);
   }
 
-  private List<MqttObject> createObjectsList(ResourceOperation operation, Device device) {
-    Map<String, MqttObject> objects = profiles.getObjects().get(device.getName());
-    List<MqttObject> objectsList = new ArrayList<>();
+  /**
+   * Store a batch of samples, oldest first. Every sample becomes a reading of the last response so
+   * the batch reaches core data as a single event.
+   *
+   * @return false if every sample was aggregated
+   */
+  public boolean putArray(Device device, ResourceOperation operation, JsonArray values) {
+    if (values.size() == 0) {
+      return true;
+    }
 
-    if (operation != null && objects != null) {
-      MqttObject object = objects.get(operation.getObject());
+    long start = System.nanoTime();
+    long now = System.currentTimeMillis();
+    boolean reported = false;
+    long transforming = 0;
+    String[] samples = new String[values.size()];
+    for (int i = 0; i < samples.length; i++) {
+      samples[i] = values.get(i).getAsString();
+    }
 
-      if (profiles.descriptorExists(operation.getParameter())) {
-        object.setName(operation.getParameter());
-        objectsList.add(object);
-      } else if (profiles.descriptorExists(object.getName())) {
-        objectsList.add(object);
-      }
+    CompiledOperation compiled = profiles.getOperation(device, operation);
+    List<MqttObject> objectsList = compiled.getObjects();
+    DeviceCache cache = getDeviceCache(device.getId());
+    DeviceCache.Response response =
+        new DeviceCache.Response(objectsList.size() * samples.length);
+    int index = 0;
 
-      if (operation.getSecondary() != null) {
-        for (String secondary : operation.getSecondary()) {
-          if (profiles.descriptorExists(secondary)) {
-            objectsList.add(objects.get(secondary));
-          }
-        }
+    for (MqttObject obj : objectsList) {
+      String objectName = obj.getName();
+      long transformStart = System.nanoTime();
+      ReadingValue[] results = transform.transformValues(obj, samples);
+      transforming += System.nanoTime() - transformStart;
+      ReadingHistory history = cache.history(objectName);
+
+      for (ReadingValue result : results) {
+        result = checkResult(result, obj, device, operation);
+        response.names[index] = objectName;
+        response.values[index++] = result;
+        history.add(result, now);
+        reported |= !aggregate(device, obj, result, now);
       }
     }
 
-    return objectsList;
+    cache.putResponses(compiled.getKey(), response);
+    recordPut(start, transforming);
+    return reported;
+  }
+
+  private DeviceCache getDeviceCache(String deviceId) {
+    DeviceCache cache = deviceCache.get(deviceId);
+    if (cache == null) {
+      cache = deviceCache.computeIfAbsent(deviceId, id -> new DeviceCache(cacheSize));
+    }
+    return cache;
+  }
+
+  private ReadingHistory getHistory(String deviceId, String object) {
+    DeviceCache cache = deviceCache.get(deviceId);
+    return cache == null ? null : cache.getHistory(object);
+  }
+
+  public void remove(String deviceId) {
+    deviceCache.remove(deviceId);
+    aggregator.remove(deviceId);
   }
 
-  private String transformResult(String result, MqttObject object, Device device,
+  private ReadingValue transformResult(String result, MqttObject object, Device device,
       ResourceOperation operation) {
-    PropertyValue propValue = object.getProperties().getValue();
+    return checkResult(transform.transformValue(object, result), object, device, operation);
+  }
 
-    String transformResult = transform.transform(propValue, result);
+  // apply the profile assertion and value mappings to a transformed value
+  private ReadingValue checkResult(ReadingValue transformResult, MqttObject object, Device device,
+      ResourceOperation operation) {
+    PropertyValue propValue = object.getProperties().getValue();
 
     // if there is an assertion set for the object on a get command, test it
     // if it fails the assertion, pass error to core services (disable device?)
     if (propValue.getAssertion() != null) {
-      if (!transformResult.equals(propValue.getAssertion().toString())) {
+      if (!transformResult.toString().equals(propValue.getAssertion().toString())) {
         device.setOperatingState(OperatingState.DISABLED);
-        return "Assertion failed with value: " + transformResult;
+        return ReadingValue.of("Assertion failed with value: " + transformResult);
       }
     }
 
     Map<String, String> mappings = operation.getMappings();
 
-    if (mappings != null && mappings.containsKey(transformResult)) {
-      transformResult = mappings.get(transformResult);
+    // mappings are keyed by the string form, only format when there are some
+    if (mappings != null && !mappings.isEmpty()) {
+      String key = transformResult.toString();
+      if (mappings.containsKey(key)) {
+        return ReadingValue.of(mappings.get(key));
+      }
     }
 
     return transformResult;
   }
 
   public String get(String deviceId, String object) {
-    return get(deviceId, object, 1).get(0);
+    List<String> values = get(deviceId, object, 1);
+    return values == null ? null : values.get(0);
   }
 
-  private List<String> get(String deviceId, String object, int i) {
-    if (objectCache.get(deviceId) == null || objectCache.get(deviceId).get(object) == null
-        || objectCache.get(deviceId).get(object).size() < i) {
+  /**
+   * @return the last count readings of the object, newest first, or null if fewer are cached
+   */
+  public List<String> get(String deviceId, String object, int count) {
+    ReadingHistory history = getHistory(deviceId, object);
+    if (history == null) {
       return null;
     }
 
-    return objectCache.get(deviceId).get(object).subList(0, i);
+    List<String> values = history.latest(count);
+    if (values.size() < count) {
+      return null;
+    }
+
+    return values;
+  }
+
+  /**
+   * @return the last reading of the object as a primitive value, or null if none is cached
+   */
+  public ReadingValue getValue(String deviceId, String object) {
+    ReadingHistory history = getHistory(deviceId, object);
+    return history == null ? null : history.latestValue();
+  }
+
+  /**
+   * @return milliseconds since the least recently stored of the operation's objects was stored,
+   *         or -1 if one of them has no value cached
+   */
+  public long getAge(Device device, ResourceOperation operation) {
+    CompiledOperation compiled = profiles.getOperation(device, operation);
+    if (compiled.getObjects().isEmpty()) {
+      return -1;
+    }
+
+    long oldest = Long.MAX_VALUE;
+    for (MqttObject obj : compiled.getObjects()) {
+      ReadingHistory history = getHistory(device.getId(), obj.getName());
+      if (history == null || history.getCount() == 0) {
+        return -1;
+      }
+      oldest = Math.min(oldest, history.getUpdated());
+    }
+
+    return Math.max(0, System.currentTimeMillis() - oldest);
+  }
+
+  /**
+   * @return up to the last count numeric readings of the object, newest first
+   */
+  public double[] getWindow(String deviceId, String object, int count) {
+    ReadingHistory history = getHistory(deviceId, object);
+    if (history == null) {
+      return new double[0];
+    }
+
+    return history.window(count);
   }
 
   public JsonObject get(Device device, ResourceOperation operation) {
     JsonObject jsonObject = new JsonObject();
-    List<MqttObject> objectsList = createObjectsList(operation, device);
 
-    for (MqttObject obj : objectsList) {
+    for (MqttObject obj : profiles.getOperation(device, operation).getObjects()) {
       String objectName = obj.getName();
       jsonObject.addProperty(objectName, get(device.getId(), objectName));
     }
@@ -191,20 +341,20 @@ public class ObjectStore {
 
   public List<Reading> getResponses(Device device, ResourceOperation operation) {
     String deviceId = device.getId();
-    List<MqttObject> objectsList = createObjectsList(operation, device);
-
-    if (objectsList == null) {
-      throw new NotFoundException("device", deviceId);
+    CompiledOperation compiled = profiles.getOperation(device, operation);
+    DeviceCache cache = deviceCache.get(deviceId);
+    DeviceCache.Response response = cache == null ? null : cache.getResponses(compiled.getKey());
+    if (response == null) {
+      return new ArrayList<>();
     }
 
-    String operationId =
-        objectsList.stream().map(o -> o.getName()).collect(Collectors.toList()).toString();
-
-    if (responseCache.get(deviceId) == null
-        || responseCache.get(deviceId).get(operationId) == null) {
-      return new ArrayList<>();
+    // values only become strings here, where they leave for core data or a REST caller
+    List<Reading> readings = new ArrayList<>(response.values.length);
+    for (int i = 0; i < response.values.length; i++) {
+      readings.add(processor.buildReading(response.names[i], response.values[i].toString(),
+          device.getName()));
     }
 
-    return responseCache.get(deviceId).get(operationId);
+    return readings;
   }
 }
@@ -20,12 +20,18 @@ package org.edgexfoundry.data;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.edgexfoundry.controller.DeviceProfileClient;
 import org.edgexfoundry.controller.ValueDescriptorClient;
+import org.edgexfoundry.domain.Aggregation;
+import org.edgexfoundry.domain.CompiledOperation;
+import org.edgexfoundry.domain.CompiledProfile;
 import org.edgexfoundry.domain.MqttObject;
 import org.edgexfoundry.domain.common.IoTType;
 import org.edgexfoundry.domain.common.ValueDescriptor;
@@ -52,11 +58,16 @@ public class ProfileStore {
   @Autowired
   private DeviceProfileClient deviceProfileClient;
 
-  private List<ValueDescriptor> valueDescriptors = new ArrayList<>();
+  // profiles are compiled outside the device store lock, so several may add descriptors at once
+  private List<ValueDescriptor> valueDescriptors = new CopyOnWriteArrayList<>();
+
+  // names of valueDescriptors for constant time lookups
+  private Set<String> descriptorNames = ConcurrentHashMap.newKeySet();
 
   // map (key of device name) to cache of each devices resources keyed by resource name
   // mapped to resource operations arrays keyed by get or put operation
-  private Map<String, Map<String, Map<String, List<ResourceOperation>>>> commands = new HashMap<>();
+  private Map<String, Map<String, Map<String, List<ResourceOperation>>>> commands =
+      new ConcurrentHashMap<>();
 
   public Map<String, Map<String, Map<String, List<ResourceOperation>>>> getCommands() {
     return commands;
@@ -65,23 +76,79 @@ public class ProfileStore {
   // map (key of device name) to cache each devices profile objects by
   // profile
   // object key
-  private Map<String, Map<String, MqttObject>> objects = new HashMap<>();
+  private Map<String, Map<String, MqttObject>> objects = new ConcurrentHashMap<>();
 
   public Map<String, Map<String, MqttObject>> getObjects() {
     return objects;
   }
 
+  // map (key of device name) to the compiled tables of the device's profile; the commands and
+  // objects maps above hold the same tables
+  private Map<String, CompiledProfile> profiles = new ConcurrentHashMap<>();
+
   public void updateDevice(Device device) {
     removeDevice(device);
     addDevice(device);
   }
 
   public void removeDevice(Device device) {
+    profiles.remove(device.getName());
     objects.remove(device.getName());
     commands.remove(device.getName());
   }
 
   public void addDevice(Device device) {
+    addDevice(device, compile(device));
+  }
+
+  /**
+   * Compile the tables of the device's profile, fetching the full profile and creating missing
+   * value descriptors in metadata. Makes REST calls, so callers should not hold a lock across it.
+   */
+  public CompiledProfile compile(Device device) {
+    // If profile is not complete, update it
+    if (device.getProfile().getDeviceResources() == null) {
+      DeviceProfile profile =
+          deviceProfileClient.deviceProfileForName(device.getProfile().getName());
+      device.setProfile(profile);
+    }
+
+    return compile(device.getProfile(), device);
+  }
+
+  // bind the device to tables returned by compile
+  public void addDevice(Device device, CompiledProfile compiled) {
+    bind(device, compiled);
+  }
+
+  /**
+   * Re-bind every device using a changed profile to its tables, returned by compile, without a
+   * metadata call or device initialization per device.
+   */
+  public void updateProfile(DeviceProfile profile, List<Device> devices,
+      CompiledProfile compiled) {
+    for (Device device : devices) {
+      device.setProfile(profile);
+      bind(device, compiled);
+    }
+  }
+
+  public CompiledProfile getProfile(Device device) {
+    return profiles.get(device.getName());
+  }
+
+  // swap in the tables of a device, the compiled operations first so that a reader that already
+  // sees the new commands finds their compiled form
+  private void bind(Device device, CompiledProfile compiled) {
+    profiles.put(device.getName(), compiled);
+    objects.put(device.getName(), compiled.getObjects());
+    commands.put(device.getName(), compiled.getCommands());
+  }
+
+  /**
+   * Compile the tables of a profile for a device using it, creating missing value descriptors.
+   */
+  public CompiledProfile compile(DeviceProfile profile, Device device) {
 
     // put the device's profile resources in the commands map
     Map<String, Map<String, List<ResourceOperation>>> deviceOperations = new HashMap<>();
@@ -94,21 +161,12 @@ public class ProfileStore {
 
     List<ResourceOperation> ops = new ArrayList<>();
 
-    // If profile is not complete, update it
-    if (device.getProfile().getDeviceResources() == null) {
-      DeviceProfile profile =
-          deviceProfileClient.deviceProfileForName(device.getProfile().getName());
-      device.setProfile(profile);
-      addDevice(device);
-      return;
-    }
-
     List<String> usedDescriptors = new ArrayList<>();
-    for (Command command : device.getProfile().getCommands()) {
+    for (Command command : profile.getCommands()) {
       usedDescriptors.addAll(command.associatedValueDescriptors());
     }
 
-    for (ProfileResource resource : device.getProfile().getResources()) {
+    for (ProfileResource resource : profile.getResources()) {
       Map<String, List<ResourceOperation>> operations =
           new HashMap<String, List<ResourceOperation>>();
       operations.put("get", resource.getGet());
@@ -127,7 +185,7 @@ public class ProfileStore {
     // put the device's profile objects in the objects map
     // put the device's profile objects in the commands map if no resource exists
     Map<String, MqttObject> deviceObjects = new HashMap<>();
-    for (DeviceObject object : device.getProfile().getDeviceResources()) {
+    for (DeviceObject object : profile.getDeviceResources()) {
       MqttObject mqttObject = new MqttObject(object);
 
       PropertyValue value = object.getProperties().getValue();
@@ -162,9 +220,6 @@ public class ProfileStore {
       }
     }
 
-    objects.put(device.getName(), deviceObjects);
-    commands.put(device.getName(), deviceOperations);
-
     // Create a value descriptor for each parameter using its underlying object
     for (ResourceOperation op : ops) {
       ValueDescriptor descriptor = descriptors.stream()
@@ -175,24 +230,123 @@ public class ProfileStore {
           continue;
         }
 
-        DeviceObject object = device.getProfile().getDeviceResources().stream()
+        DeviceObject object = profile.getDeviceResources().stream()
             .filter(obj -> obj.getName().equals(op.getObject())).findAny().orElse(null);
 
         descriptor = createDescriptor(op.getParameter(), object, device);
       }
 
-      valueDescriptors.add(descriptor);
+      if (descriptorNames.add(descriptor.getName())) {
+        valueDescriptors.add(descriptor);
+      }
       descriptors.add(descriptor);
     }
+
+    // aggregated objects are reported as min, max, average and count readings of their own
+    for (ResourceOperation op : ops) {
+      MqttObject object = deviceObjects.get(op.getObject());
+      if (object == null || object.getAggregation() == null) {
+        continue;
+      }
+
+      String name = descriptorExists(op.getParameter()) ? op.getParameter() : object.getName();
+      for (String summaryName : Aggregation.getReadingNames(name)) {
+        if (!descriptorExists(summaryName)) {
+          ValueDescriptor descriptor = descriptors.stream()
+              .filter(d -> d.getName().equals(summaryName)).findAny().orElse(null);
+          if (descriptor == null) {
+            descriptor = createSummaryDescriptor(summaryName, object, device);
+          }
+          if (descriptorNames.add(descriptor.getName())) {
+            valueDescriptors.add(descriptor);
+          }
+        }
+      }
+    }
+
+    // resolve every operation once the descriptors it depends on exist
+    Map<ResourceOperation, CompiledOperation> compiled = new IdentityHashMap<>();
+    for (ResourceOperation op : ops) {
+      compiled.put(op, compileOperation(deviceObjects, op));
+    }
+
+    return new CompiledProfile(profile, deviceOperations, deviceObjects, compiled);
+  }
+
+  /**
+   * @return the objects and response key of the operation for the device, never null; an
+   *         operation outside the device's profile is resolved on each call
+   */
+  public CompiledOperation getOperation(Device device, ResourceOperation operation) {
+    CompiledProfile profile = profiles.get(device.getName());
+    CompiledOperation compiled = profile == null ? null : profile.getOperation(operation);
+
+    if (compiled == null) {
+      // operation from outside the loaded profile, resolve it without caching
+      compiled = compileOperation(profile == null ? null : profile.getObjects(), operation);
+    }
+
+    return compiled;
+  }
+
+  private CompiledOperation compileOperation(Map<String, MqttObject> deviceObjects,
+      ResourceOperation operation) {
+    List<MqttObject> objectsList = new ArrayList<>();
+
+    if (operation != null && deviceObjects != null) {
+      MqttObject object = deviceObjects.get(operation.getObject());
+
+      if (object != null) {
+        if (descriptorExists(operation.getParameter())) {
+          // report under the parameter name without renaming the shared profile object
+          MqttObject parameterObject = new MqttObject(object);
+          parameterObject.setName(operation.getParameter());
+          objectsList.add(parameterObject);
+        } else if (descriptorExists(object.getName())) {
+          objectsList.add(object);
+        }
+      }
+
+      if (operation.getSecondary() != null) {
+        for (String secondary : operation.getSecondary()) {
+          MqttObject secondaryObject = deviceObjects.get(secondary);
+          if (secondaryObject == null) {
+            logger.error("Secondary object " + secondary + " of " + operation.getObject()
+                + " is not in the profile, skipping it");
+          } else if (descriptorExists(secondary)) {
+            objectsList.add(secondaryObject);
+          }
+        }
+      }
+    }
+
+    return new CompiledOperation(objectsList);
   }
 
   private ValueDescriptor createDescriptor(String name, DeviceObject object, Device device) {
     PropertyValue value = object.getProperties().getValue();
     Units units = object.getProperties().getUnits();
-    ValueDescriptor descriptor = new ValueDescriptor(name, value.getMinimum(), value.getMaximum(),
+    return addDescriptor(new ValueDescriptor(name, value.getMinimum(), value.getMaximum(),
         IoTType.valueOf(value.getType().substring(0, 1)), units.getDefaultValue(),
-        value.getDefaultValue(), "%s", null, object.getDescription());
+        value.getDefaultValue(), "%s", null, object.getDescription()));
+  }
+
+  // the minimum and maximum of a window are values of the object itself, while its average is a
+  // float and its count an integer, and neither is bound by the range of the object
+  private ValueDescriptor createSummaryDescriptor(String name, DeviceObject object,
+      Device device) {
+    if (name.endsWith(Aggregation.AVG)) {
+      Units units = object.getProperties().getUnits();
+      return addDescriptor(new ValueDescriptor(name, null, null, IoTType.F,
+          units.getDefaultValue(), null, "%s", null, "Average of " + object.getName()));
+    } else if (name.endsWith(Aggregation.COUNT)) {
+      return addDescriptor(new ValueDescriptor(name, null, null, IoTType.I, null, null, "%s",
+          null, "Number of " + object.getName() + " values"));
+    }
+    return createDescriptor(name, object, device);
+  }
 
+  private ValueDescriptor addDescriptor(ValueDescriptor descriptor) {
     try {
       descriptor.setId(valueDescriptorClient.add(descriptor));
     } catch (Exception e) {
@@ -208,7 +362,6 @@ public class ProfileStore {
   }
 
   public boolean descriptorExists(String name) {
-    return !getValueDescriptors().stream().filter(desc -> desc.getName().equals(name))
-        .collect(Collectors.toList()).isEmpty();
+    return name != null && descriptorNames.contains(name);
   }
 }
@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.edgexfoundry.data.ReadingWindow.Summary;
+import org.edgexfoundry.domain.Aggregation;
+import org.edgexfoundry.domain.ReadingValue;
+import org.edgexfoundry.domain.core.Reading;
+import org.edgexfoundry.domain.meta.Device;
+import org.edgexfoundry.handler.CoreDataMessageHandler;
+import org.edgexfoundry.metrics.MetricsRegistry;
+import org.edgexfoundry.support.logging.client.EdgeXLogger;
+import org.edgexfoundry.support.logging.client.EdgeXLoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Summarises the incoming values of device objects with an aggregation over tumbling or sliding
+ * windows, and sends one event per closed window to core data in place of the values. Windows are
+ * closed by the next value after they end, or by the periodic sweep if the device goes quiet.
+ */
+@Component
+public class ReadingAggregator {
+
+  private static final EdgeXLogger logger =
+      EdgeXLoggerFactory.getEdgeXLogger(ReadingAggregator.class);
+
+  // milliseconds between sweeps for windows that are over
+  @Value("${data.aggregate.sweep:1000}")
+  private long sweepInterval;
+
+  @Autowired
+  private ProfileStore profiles;
+
+  @Autowired
+  private CoreDataMessageHandler processor;
+
+  @Autowired
+  private MetricsRegistry metrics;
+
+  // device id to that device's windows
+  private final Map<String, DeviceWindows> devices = new ConcurrentHashMap<>();
+
+  private ScheduledExecutorService executor;
+
+  @PostConstruct
+  public void init() {
+    executor = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "aggregate-sweep");
+      thread.setDaemon(true);
+      return thread;
+    });
+    long interval = Math.max(sweepInterval, 1);
+    executor.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.MILLISECONDS);
+    metrics.gauge("aggregate_windows", this::getWindowCount);
+  }
+
+  @PreDestroy
+  public void cleanup() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Add a numeric value of the object at now, in milliseconds, sending any windows it closes.
+   */
+  public void add(Device device, String objectName, Aggregation aggregation, ReadingValue value,
+      long now) {
+    DeviceWindows windows = devices.get(device.getId());
+    if (windows == null) {
+      windows = devices.computeIfAbsent(device.getId(), id -> new DeviceWindows(device.getName()));
+    }
+
+    ReadingWindow window = windows.objects.get(objectName);
+    if (window == null || !aggregation.equals(window.getAggregation())) {
+      if (window != null) {
+        // the profile has changed, send what the old window holds before starting over
+        send(windows.deviceName, objectName, window.closeAll());
+      }
+      window = new ReadingWindow(aggregation);
+      windows.objects.put(objectName, window);
+    }
+
+    send(windows.deviceName, objectName, window.add(value, now));
+  }
+
+  public void remove(String deviceId) {
+    devices.remove(deviceId);
+  }
+
+  public int getWindowCount() {
+    int count = 0;
+    for (DeviceWindows windows : devices.values()) {
+      count += windows.objects.size();
+    }
+    return count;
+  }
+
+  // close the windows that are over, for devices that have gone quiet
+  void sweep() {
+    long now = System.currentTimeMillis();
+    for (DeviceWindows windows : devices.values()) {
+      for (Map.Entry<String, ReadingWindow> entry : windows.objects.entrySet()) {
+        try {
+          send(windows.deviceName, entry.getKey(), entry.getValue().close(now));
+        } catch (Exception e) {
+          logger.error("Problem sending the aggregate of " + entry.getKey() + " for "
+              + windows.deviceName + ": " + e.getMessage());
+        }
+      }
+    }
+  }
+
+  private void send(String deviceName, String objectName, List<Summary> summaries) {
+    for (Summary summary : summaries) {
+      String[] names = Aggregation.getReadingNames(objectName);
+      String[] values = {summary.min.toString(), summary.max.toString(),
+          Double.toString(summary.average), Long.toString(summary.count)};
+
+      List<Reading> readings = new ArrayList<>(names.length);
+      for (int i = 0; i < names.length; i++) {
+        Reading reading = processor.buildReading(names[i], values[i], deviceName);
+        reading.setOrigin(summary.time);
+        readings.add(reading);
+      }
+
+      processor.sendCoreData(deviceName, readings, profiles.getObjects().get(deviceName));
+    }
+  }
+
+  private static class DeviceWindows {
+    private final String deviceName;
+
+    // object name to its window
+    private final Map<String, ReadingWindow> objects = new ConcurrentHashMap<>();
+
+    DeviceWindows(String deviceName) {
+      this.deviceName = deviceName;
+    }
+  }
+}
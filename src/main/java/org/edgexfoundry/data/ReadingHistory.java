@@ -0,0 +1,231 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.edgexfoundry.domain.ReadingValue;
+import org.edgexfoundry.domain.ReadingValue.Kind;
+
+/**
+ * Fixed capacity history of the most recent values of one device object. Writes are O(1) and never
+ * take a lock; readers get the newest K values without blocking writers.
+ *
+ * Numeric and boolean values are kept as primitive bits, anything else is kept as the string.
+ * Each slot carries the sequence number of the value in it so readers can detect (and skip) a slot
+ * that is being overwritten while they read it.
+ */
+public class ReadingHistory {
+
+  private static final long EMPTY = Long.MIN_VALUE;
+
+  private static final Kind[] KINDS = Kind.values();
+
+  private final int capacity;
+  private final AtomicLong head = new AtomicLong();
+  private final AtomicLongArray stamps;
+  private final AtomicIntegerArray kinds;
+  private final AtomicLongArray bits;
+  private final AtomicReferenceArray<String> strings;
+
+  // when the last value was added, in milliseconds
+  private volatile long updated;
+
+  public ReadingHistory(int capacity) {
+    this.capacity = Math.max(capacity, 1);
+    stamps = new AtomicLongArray(this.capacity);
+    kinds = new AtomicIntegerArray(this.capacity);
+    bits = new AtomicLongArray(this.capacity);
+    strings = new AtomicReferenceArray<>(this.capacity);
+    for (int i = 0; i < this.capacity; i++) {
+      stamps.set(i, EMPTY);
+    }
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  // number of values written since creation
+  public long getCount() {
+    return head.get();
+  }
+
+  // when the last value was added, in milliseconds
+  public long getUpdated() {
+    return updated;
+  }
+
+  public void add(String value) {
+    add(ReadingValue.parse(value));
+  }
+
+  public void add(ReadingValue value) {
+    add(value, System.currentTimeMillis());
+  }
+
+  /**
+   * Add a value stored at time, in milliseconds.
+   */
+  public void add(ReadingValue value, long time) {
+    long seq = head.getAndIncrement();
+    int slot = (int) (seq % capacity);
+
+    // claim the slot; a writer that has been lapped by a newer one simply drops its value
+    for (;;) {
+      long stamp = stamps.get(slot);
+      if (stamp != EMPTY && stamp < 0) {
+        // another writer is filling this slot
+        Thread.yield();
+        continue;
+      }
+      if (stamp != EMPTY && stamp > seq) {
+        return;
+      }
+      if (stamps.compareAndSet(slot, stamp, -seq - 1)) {
+        break;
+      }
+    }
+
+    store(slot, value);
+    stamps.set(slot, seq);
+    // only once the value can be read, so the age never vouches for the value before it
+    updated = time;
+  }
+
+  private void store(int slot, ReadingValue value) {
+    bits.set(slot, value.getBits());
+    kinds.set(slot, value.getKind().ordinal());
+    strings.set(slot, value.getKind() == Kind.STRING ? value.toString() : null);
+  }
+
+  /**
+   * @return the most recent value, or null if nothing has been written
+   */
+  public String latest() {
+    List<String> values = latest(1);
+    return values.isEmpty() ? null : values.get(0);
+  }
+
+  /**
+   * @return up to count of the most recent values, newest first
+   */
+  public List<String> latest(int count) {
+    List<ReadingValue> values = latestValues(count);
+    List<String> strings = new ArrayList<>(values.size());
+    for (ReadingValue value : values) {
+      strings.add(value.toString());
+    }
+    return strings;
+  }
+
+  /**
+   * @return the most recent value, or null if nothing has been written
+   */
+  public ReadingValue latestValue() {
+    List<ReadingValue> values = latestValues(1);
+    return values.isEmpty() ? null : values.get(0);
+  }
+
+  /**
+   * @return up to count of the most recent values, newest first
+   */
+  public List<ReadingValue> latestValues(int count) {
+    for (;;) {
+      long end = head.get();
+      int size = (int) Math.min(Math.min(count, capacity), end);
+      List<ReadingValue> values = new ArrayList<>(size);
+
+      // a slot still being written is skipped in favour of older values; a slot whose writer has
+      // not claimed it yet still holds the value one lap back, so walk back up to two laps
+      for (long seq = end - 1; seq >= oldest(end) && values.size() < size; seq--) {
+        int slot = (int) (seq % capacity);
+        if (stamps.get(slot) != seq) {
+          // not yet published or already overwritten
+          continue;
+        }
+
+        int kind = kinds.get(slot);
+        long raw = bits.get(slot);
+        String text = strings.get(slot);
+
+        if (stamps.get(slot) != seq) {
+          continue;
+        }
+
+        values.add(ReadingValue.of(KINDS[kind], raw, text));
+      }
+
+      if (values.size() == size) {
+        return values;
+      }
+      // every slot we needed was mid-write, try again once the writers have published
+      Thread.yield();
+    }
+  }
+
+  // lowest sequence that can still be held in the ring when end values have been written
+  private long oldest(long end) {
+    return Math.max(0, end - 2L * capacity);
+  }
+
+  /**
+   * Numeric window of the most recent values, newest first. Values that are not numeric are
+   * skipped, so the result may be shorter than count.
+   */
+  public double[] window(int count) {
+    long end = head.get();
+    int size = (int) Math.min(Math.min(count, capacity), end);
+    double[] values = new double[size];
+    int n = 0;
+
+    for (long seq = end - 1, seen = 0; seq >= oldest(end) && seen < size; seq--) {
+      int slot = (int) (seq % capacity);
+      if (stamps.get(slot) != seq) {
+        continue;
+      }
+
+      int kind = kinds.get(slot);
+      long raw = bits.get(slot);
+
+      if (stamps.get(slot) != seq) {
+        continue;
+      }
+      seen++;
+      if (KINDS[kind] != Kind.LONG && KINDS[kind] != Kind.DOUBLE) {
+        continue;
+      }
+
+      values[n++] = KINDS[kind] == Kind.LONG ? raw : Double.longBitsToDouble(raw);
+    }
+
+    if (n < size) {
+      double[] trimmed = new double[n];
+      System.arraycopy(values, 0, trimmed, 0, n);
+      return trimmed;
+    }
+
+    return values;
+  }
+}
@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.edgexfoundry.domain.Aggregation;
+import org.edgexfoundry.domain.ReadingValue;
+import org.edgexfoundry.domain.ReadingValue.Kind;
+
+/**
+ * Running min, max, sum and count of the values of one device object, kept in primitive arrays
+ * with one slot per slide (pane) of the window. A window is closed, and its panes combined into a
+ * summary, once the pane it ends with is over; the slot of a pane is only reused after every
+ * window covering that pane has been closed.
+ */
+class ReadingWindow {
+
+  private final Aggregation aggregation;
+  private final long slide;
+  private final int panes;
+
+  // pane number held in each slot, and its accumulators
+  private final long[] index;
+  private final long[] counts;
+  private final double[] sums;
+  private final double[] mins;
+  private final double[] maxs;
+  // true while every value of the pane has been an integer
+  private final boolean[] integral;
+
+  // last pane holding a value, and the last pane a window has been closed at
+  private long latest = Long.MIN_VALUE;
+  private long closed = Long.MIN_VALUE;
+
+  ReadingWindow(Aggregation aggregation) {
+    this.aggregation = aggregation;
+    this.slide = aggregation.getSlide();
+    this.panes = aggregation.getPanes();
+    index = new long[panes];
+    counts = new long[panes];
+    sums = new double[panes];
+    mins = new double[panes];
+    maxs = new double[panes];
+    integral = new boolean[panes];
+    for (int i = 0; i < panes; i++) {
+      index[i] = Long.MIN_VALUE;
+    }
+  }
+
+  Aggregation getAggregation() {
+    return aggregation;
+  }
+
+  /**
+   * Add a value at now, in milliseconds.
+   *
+   * @return the windows closed before it
+   */
+  synchronized List<Summary> add(ReadingValue value, long now) {
+    long pane = now / slide;
+    List<Summary> summaries = advance(pane);
+
+    int slot = (int) (pane % panes);
+    double number = value.getDouble();
+    if (index[slot] != pane) {
+      index[slot] = pane;
+      counts[slot] = 0;
+      sums[slot] = 0;
+      mins[slot] = number;
+      maxs[slot] = number;
+      integral[slot] = true;
+    }
+
+    counts[slot]++;
+    sums[slot] += number;
+    mins[slot] = Math.min(mins[slot], number);
+    maxs[slot] = Math.max(maxs[slot], number);
+    integral[slot] &= value.getKind() == Kind.LONG;
+    if (pane > latest) {
+      latest = pane;
+    }
+    return summaries;
+  }
+
+  /**
+   * @return the windows that are over at now, in milliseconds
+   */
+  synchronized List<Summary> close(long now) {
+    return advance(now / slide);
+  }
+
+  /**
+   * @return every window holding a value, including those still open
+   */
+  synchronized List<Summary> closeAll() {
+    if (latest == Long.MIN_VALUE) {
+      return Collections.emptyList();
+    }
+    return advance(latest + panes);
+  }
+
+  // close the windows ending before the pane, leaving out those without values
+  private List<Summary> advance(long pane) {
+    if (latest == Long.MIN_VALUE) {
+      closed = pane - 1;
+      return Collections.emptyList();
+    }
+
+    // windows ending after the last pane's window holds no values
+    long last = Math.min(pane - 1, latest + panes - 1);
+    List<Summary> summaries = null;
+    for (long end = closed + 1; end <= last; end++) {
+      Summary summary = summarize(end);
+      if (summary != null) {
+        if (summaries == null) {
+          summaries = new ArrayList<>();
+        }
+        summaries.add(summary);
+      }
+    }
+
+    closed = Math.max(closed, pane - 1);
+    return summaries == null ? Collections.emptyList() : summaries;
+  }
+
+  private Summary summarize(long end) {
+    long count = 0;
+    double sum = 0;
+    double min = Double.POSITIVE_INFINITY;
+    double max = Double.NEGATIVE_INFINITY;
+    boolean integers = true;
+    for (long pane = end - panes + 1; pane <= end; pane++) {
+      int slot = (int) Math.floorMod(pane, (long) panes);
+      if (index[slot] == pane) {
+        count += counts[slot];
+        sum += sums[slot];
+        min = Math.min(min, mins[slot]);
+        max = Math.max(max, maxs[slot]);
+        integers &= integral[slot];
+      }
+    }
+
+    return count == 0 ? null : new Summary((end + 1) * slide, count, sum / count,
+        integers ? ReadingValue.of((long) min) : ReadingValue.of(min),
+        integers ? ReadingValue.of((long) max) : ReadingValue.of(max));
+  }
+
+  // one closed window
+  static class Summary {
+    // end of the window in milliseconds
+    final long time;
+    final long count;
+    final double average;
+    final ReadingValue min;
+    final ReadingValue max;
+
+    Summary(long time, long count, double average, ReadingValue min, ReadingValue max) {
+      this.time = time;
+      this.count = count;
+      this.average = average;
+      this.min = min;
+      this.max = max;
+    }
+  }
+}
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.data;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.edgexfoundry.domain.CompiledWatcher;
+import org.edgexfoundry.domain.meta.ProvisionWatcher;
+
+/**
+ * Immutable lookup of the compiled provision watchers. Watchers are bucketed by the first
+ * character of their literal prefix on the identifier they are indexed by; a scanned device is
+ * only tested against watchers whose prefix it starts with, plus those without a prefix. The first
+ * matching watcher in store order wins, as it did with a linear scan.
+ */
+public class WatcherIndex {
+
+  private final CompiledWatcher[] watchers;
+
+  // watchers without a literal prefix, tested for every device
+  private final BitSet unindexed = new BitSet();
+
+  // identifier key to first prefix character to watcher positions
+  private final Map<String, Map<Character, List<Integer>>> prefixes = new HashMap<>();
+
+  public WatcherIndex(List<CompiledWatcher> compiled) {
+    watchers = compiled.toArray(new CompiledWatcher[compiled.size()]);
+
+    for (int i = 0; i < watchers.length; i++) {
+      CompiledWatcher watcher = watchers[i];
+      if (watcher.getIndexKey() == null) {
+        unindexed.set(i);
+      } else {
+        prefixes.computeIfAbsent(watcher.getIndexKey(), key -> new HashMap<>())
+            .computeIfAbsent(watcher.getIndexPrefix().charAt(0), c -> new ArrayList<>()).add(i);
+      }
+    }
+  }
+
+  public ProvisionWatcher match(Map<String, String> device) {
+    BitSet candidates = (BitSet) unindexed.clone();
+
+    for (Map.Entry<String, Map<Character, List<Integer>>> entry : prefixes.entrySet()) {
+      String value = device.get(entry.getKey());
+      if (value == null || value.isEmpty()) {
+        continue;
+      }
+
+      List<Integer> bucket = entry.getValue().get(value.charAt(0));
+      if (bucket != null) {
+        for (int i : bucket) {
+          if (value.startsWith(watchers[i].getIndexPrefix())) {
+            candidates.set(i);
+          }
+        }
+      }
+    }
+
+    for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+      if (watchers[i].matches(device)) {
+        return watchers[i].getWatcher();
+      }
+    }
+
+    return null;
+  }
+
+  public int size() {
+    return watchers.length;
+  }
+}
@@ -19,12 +19,17 @@
 package org.edgexfoundry.data;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import org.edgexfoundry.controller.DeviceProfileClient;
 import org.edgexfoundry.controller.DeviceServiceClient;
 import org.edgexfoundry.controller.ProvisionWatcherClient;
+import org.edgexfoundry.domain.CompiledWatcher;
 import org.edgexfoundry.domain.SimpleWatcher;
 import org.edgexfoundry.domain.meta.DeviceProfile;
 import org.edgexfoundry.domain.meta.DeviceService;
@@ -51,10 +56,46 @@ public class WatcherStore {
   @Autowired
   private DeviceServiceClient serviceClient;
 
-  private List<ProvisionWatcher> watchers = new ArrayList<ProvisionWatcher>();
+  // watcher name to its compiled identifiers, replaced whenever the watcher is added or updated
+  private Map<String, CompiledWatcher> compiled = new ConcurrentHashMap<>();
 
+  // current watchers; replaced as a whole on every change so readers never see a partial update
+  private volatile Snapshot snapshot = new Snapshot(new ArrayList<>());
+
+  // serializes changes, readers never take it
+  private final Object writeLock = new Object();
+
+  /**
+   * @return an unmodifiable snapshot of the watchers in the order they were added
+   */
   public List<ProvisionWatcher> getWatchers() {
-    return watchers;
+    return snapshot.watchers;
+  }
+
+  public ProvisionWatcher getWatcher(String id) {
+    return snapshot.byId.get(id);
+  }
+
+  public ProvisionWatcher getWatcherByName(String name) {
+    return snapshot.byName.get(name);
+  }
+
+  public WatcherIndex getIndex() {
+    return snapshot.index;
+  }
+
+  // must hold the write lock
+  private void publish(List<ProvisionWatcher> watchers) {
+    snapshot = new Snapshot(watchers);
+  }
+
+  private CompiledWatcher compile(ProvisionWatcher watcher) {
+    CompiledWatcher current = compiled.get(watcher.getName());
+    if (current == null || current.getWatcher() != watcher) {
+      current = new CompiledWatcher(watcher);
+      compiled.put(watcher.getName(), current);
+    }
+    return current;
   }
 
   public void initialize(String deviceServiceId) {
@@ -74,7 +115,7 @@ public class WatcherStore {
   }
 
   public boolean add(ProvisionWatcher watcher) {
-    if (watchers.stream().noneMatch(w -> w.getName().equals(watcher.getName()))) {
+    if (!snapshot.byName.containsKey(watcher.getName())) {
       if (watcher.getProfile().getId() == null) {
         logger.info("Profile " + watcher.getProfile().getName()
             + " has not been added to metadata, watcher will not be added");
@@ -90,7 +131,13 @@ public class WatcherStore {
         }
       }
 
-      watchers.add(watcher);
+      synchronized (writeLock) {
+        if (!snapshot.byName.containsKey(watcher.getName())) {
+          List<ProvisionWatcher> watchers = new ArrayList<>(snapshot.watchers);
+          watchers.add(watcher);
+          publish(watchers);
+        }
+      }
     }
 
     return true;
@@ -110,11 +157,15 @@ public class WatcherStore {
   }
 
   public boolean remove(ProvisionWatcher provisionWatcher) {
-    ProvisionWatcher watcher = watchers.stream()
-        .filter(w -> w.getId().equals(provisionWatcher.getId())).findAny().orElse(null);
-
-    if (watcher != null) {
-      watchers.remove(watcher);
+    synchronized (writeLock) {
+      ProvisionWatcher watcher = snapshot.byId.get(provisionWatcher.getId());
+
+      if (watcher != null) {
+        List<ProvisionWatcher> watchers = new ArrayList<>(snapshot.watchers);
+        watchers.remove(watcher);
+        compiled.remove(watcher.getName());
+        publish(watchers);
+      }
     }
 
     return true;
@@ -126,15 +177,37 @@ public class WatcherStore {
   }
 
   public boolean update(ProvisionWatcher provisionWatcher) {
-    ProvisionWatcher watcher = watchers.stream()
-        .filter(w -> w.getId().equals(provisionWatcher.getId())).findAny().orElse(null);
+    synchronized (writeLock) {
+      ProvisionWatcher watcher = snapshot.byId.get(provisionWatcher.getId());
+
+      if (watcher == null) {
+        return false;
+      }
 
-    if (watcher != null) {
-      watchers.remove(watcher);
-      return add(provisionWatcher);
+      List<ProvisionWatcher> watchers = new ArrayList<>(snapshot.watchers);
+      int position = watchers.indexOf(watcher);
+      compiled.remove(watcher.getName());
+
+      if (provisionWatcher.getProfile().getId() == null) {
+        logger.info("Profile " + provisionWatcher.getProfile().getName()
+            + " has not been added to metadata, watcher will not be added");
+        watchers.remove(position);
+        publish(watchers);
+        return false;
+      }
+
+      ProvisionWatcher sameName = snapshot.byName.get(provisionWatcher.getName());
+      if (sameName != null && sameName != watcher) {
+        // renamed to the name of another watcher, which is kept
+        watchers.remove(position);
+      } else {
+        // replaced in place, discovery sees either the old or the new watcher
+        watchers.set(position, provisionWatcher);
+      }
+      publish(watchers);
     }
 
-    return false;
+    return true;
   }
 
   public DeviceProfile getWatcherProfile(ProvisionWatcher watcher) {
@@ -170,7 +243,7 @@ public class WatcherStore {
       }
     }
 
-    return watchers.size();
+    return snapshot.watchers.size();
   }
 
   public boolean updateProfile(String profileId) {
@@ -183,7 +256,7 @@ public class WatcherStore {
     }
 
     boolean success = true;
-    for (ProvisionWatcher watcher : watchers.stream()
+    for (ProvisionWatcher watcher : snapshot.watchers.stream()
         .filter(w -> profile.getName().equals(w.getProfile().getName()))
         .collect(Collectors.toList())) {
 
@@ -193,4 +266,25 @@ public class WatcherStore {
     }
     return success;
   }
+
+  /**
+   * Immutable view of the watchers, indexed by id and name and compiled for discovery.
+   */
+  private class Snapshot {
+    private final List<ProvisionWatcher> watchers;
+    private final Map<String, ProvisionWatcher> byId = new HashMap<>();
+    private final Map<String, ProvisionWatcher> byName = new HashMap<>();
+    private final WatcherIndex index;
+
+    Snapshot(List<ProvisionWatcher> watchers) {
+      this.watchers = Collections.unmodifiableList(watchers);
+      List<CompiledWatcher> list = new ArrayList<>(watchers.size());
+      for (ProvisionWatcher watcher : watchers) {
+        byId.put(watcher.getId(), watcher);
+        byName.put(watcher.getName(), watcher);
+        list.add(compile(watcher));
+      }
+      index = new WatcherIndex(list);
+    }
+  }
 }
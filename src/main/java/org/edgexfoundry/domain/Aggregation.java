@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.domain;
+
+/**
+ * Windowed aggregation of the incoming numeric values of a device object, resolved once from the
+ * object's profile attributes:
+ *
+ * aggregate - milliseconds covered by each window
+ *
+ * aggregateSlide - milliseconds between windows, less than aggregate for sliding windows; by
+ * default the windows tumble, one after the other
+ *
+ * Instead of every value, one event per window is sent to core data with the readings named by
+ * getReadingNames.
+ */
+public final class Aggregation {
+
+  public static final String MIN = "_min";
+  public static final String MAX = "_max";
+  public static final String AVG = "_avg";
+  public static final String COUNT = "_count";
+
+  private final long window;
+  private final long slide;
+
+  private Aggregation(long window, long slide) {
+    this.window = window;
+    this.slide = slide;
+  }
+
+  /**
+   * @return the aggregation of the attributes, or null if they do not set one
+   */
+  public static Aggregation compile(MqttAttribute attributes) {
+    if (attributes == null || attributes.getAggregate() == null
+        || attributes.getAggregate() <= 0) {
+      return null;
+    }
+
+    long window = attributes.getAggregate();
+    Long slide = attributes.getAggregateSlide();
+    if (slide == null || slide <= 0 || slide >= window) {
+      return new Aggregation(window, window);
+    }
+
+    // a whole number of slides to each window
+    long panes = (window + slide - 1) / slide;
+    return new Aggregation(panes * slide, slide);
+  }
+
+  public static String[] getReadingNames(String objectName) {
+    return new String[] {objectName + MIN, objectName + MAX, objectName + AVG,
+        objectName + COUNT};
+  }
+
+  public long getWindow() {
+    return window;
+  }
+
+  public long getSlide() {
+    return slide;
+  }
+
+  // slides to each window, 1 when the windows tumble
+  public int getPanes() {
+    return (int) (window / slide);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof Aggregation)) {
+      return false;
+    }
+    Aggregation other = (Aggregation) obj;
+    return window == other.window && slide == other.slide;
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(window) * 31 + Long.hashCode(slide);
+  }
+
+  @Override
+  public String toString() {
+    return "Aggregation [window=" + window + ", slide=" + slide + "]";
+  }
+}
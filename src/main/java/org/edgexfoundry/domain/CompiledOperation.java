@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.domain;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A resource operation resolved against a device profile: the objects it reads or writes, and the
+ * key its last response is cached under. Built once when the profile is loaded.
+ */
+public class CompiledOperation {
+
+  private final List<MqttObject> objects;
+  private final String key;
+  private final boolean array;
+
+  public CompiledOperation(List<MqttObject> objects) {
+    this.objects = Collections.unmodifiableList(objects);
+    StringBuilder builder = new StringBuilder("[");
+    boolean hasArray = false;
+    for (int i = 0; i < objects.size(); i++) {
+      if (i > 0) {
+        builder.append(", ");
+      }
+      builder.append(objects.get(i).getName());
+      MqttAttribute attributes = objects.get(i).getAttributes();
+      hasArray |= attributes != null && attributes.isArray();
+    }
+    this.array = hasArray;
+    this.key = builder.append("]").toString();
+  }
+
+  public List<MqttObject> getObjects() {
+    return objects;
+  }
+
+  public String getKey() {
+    return key;
+  }
+
+  // true if any of the objects is an array attribute
+  public boolean isArray() {
+    return array;
+  }
+
+  @Override
+  public String toString() {
+    return "CompiledOperation [key=" + key + "]";
+  }
+}
@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.domain;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.edgexfoundry.domain.meta.DeviceProfile;
+import org.edgexfoundry.domain.meta.ResourceOperation;
+
+/**
+ * The lookup tables of one device profile: resource operations by resource name and get or set,
+ * the profile objects by name, and every operation resolved to its objects. Built once per profile
+ * change and shared by every device using the profile; never modified after it is built.
+ */
+public class CompiledProfile {
+
+  private final DeviceProfile profile;
+  private final Map<String, Map<String, List<ResourceOperation>>> commands;
+  private final Map<String, MqttObject> objects;
+  private final Map<ResourceOperation, CompiledOperation> operations;
+
+  public CompiledProfile(DeviceProfile profile,
+      Map<String, Map<String, List<ResourceOperation>>> commands, Map<String, MqttObject> objects,
+      Map<ResourceOperation, CompiledOperation> operations) {
+    this.profile = profile;
+    this.commands = Collections.unmodifiableMap(commands);
+    this.objects = Collections.unmodifiableMap(objects);
+    this.operations = Collections.unmodifiableMap(operations);
+  }
+
+  public DeviceProfile getProfile() {
+    return profile;
+  }
+
+  public Map<String, Map<String, List<ResourceOperation>>> getCommands() {
+    return commands;
+  }
+
+  public Map<String, MqttObject> getObjects() {
+    return objects;
+  }
+
+  public CompiledOperation getOperation(ResourceOperation operation) {
+    return operations.get(operation);
+  }
+}
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.domain;
+
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.edgexfoundry.domain.meta.ProvisionWatcher;
+import org.edgexfoundry.support.logging.client.EdgeXLogger;
+import org.edgexfoundry.support.logging.client.EdgeXLoggerFactory;
+
+/**
+ * A provision watcher with its identifier patterns compiled once, when the watcher is added or
+ * updated. Also carries the longest literal prefix any full match of an identifier must start
+ * with, so candidates can be rejected before a regex is run.
+ */
+public class CompiledWatcher {
+
+  private static final EdgeXLogger logger =
+      EdgeXLoggerFactory.getEdgeXLogger(CompiledWatcher.class);
+
+  private static final String META_CHARACTERS = "\\^$.|?*+()[]{}";
+
+  private final ProvisionWatcher watcher;
+  private final String[] keys;
+  private final Pattern[] patterns;
+  private final boolean valid;
+  private final String indexKey;
+  private final String indexPrefix;
+
+  public CompiledWatcher(ProvisionWatcher watcher) {
+    this.watcher = watcher;
+    Map<String, String> identifiers = watcher.getIdentifiers();
+    int size = identifiers == null ? 0 : identifiers.size();
+    keys = new String[size];
+    patterns = new Pattern[size];
+
+    boolean compiled = true;
+    String bestKey = null;
+    String bestPrefix = "";
+    int i = 0;
+
+    if (identifiers != null) {
+      for (Map.Entry<String, String> entry : identifiers.entrySet()) {
+        keys[i] = entry.getKey();
+        try {
+          patterns[i] = Pattern.compile(entry.getValue());
+        } catch (PatternSyntaxException | NullPointerException e) {
+          logger.error("Identifier " + entry.getKey() + " of provision watcher "
+              + watcher.getName() + " is not a valid pattern, watcher will not match: "
+              + e.getMessage());
+          compiled = false;
+        }
+
+        String prefix = literalPrefix(entry.getValue());
+        if (prefix.length() > bestPrefix.length()) {
+          bestKey = entry.getKey();
+          bestPrefix = prefix;
+        }
+        i++;
+      }
+    }
+
+    valid = compiled;
+    indexKey = bestKey;
+    indexPrefix = bestPrefix;
+  }
+
+  /**
+   * The literal text every full match of the regex starts with. Conservative: stops at the first
+   * meta character, drops a character made optional by a quantifier, and gives up on alternation.
+   */
+  public static String literalPrefix(String regex) {
+    if (regex == null || regex.indexOf('|') >= 0) {
+      return "";
+    }
+
+    int end = 0;
+    while (end < regex.length() && META_CHARACTERS.indexOf(regex.charAt(end)) < 0) {
+      end++;
+    }
+
+    if (end < regex.length() && end > 0) {
+      char next = regex.charAt(end);
+      if (next == '?' || next == '*' || next == '{') {
+        end--;
+      }
+    }
+
+    return regex.substring(0, end);
+  }
+
+  public ProvisionWatcher getWatcher() {
+    return watcher;
+  }
+
+  // identifier used to index the watcher, or null if none has a literal prefix
+  public String getIndexKey() {
+    return indexKey;
+  }
+
+  public String getIndexPrefix() {
+    return indexPrefix;
+  }
+
+  /**
+   * @return true if every identifier of the watcher fully matches the same field of the device
+   */
+  public boolean matches(Map<String, String> device) {
+    if (!valid) {
+      return false;
+    }
+
+    for (int i = 0; i < keys.length; i++) {
+      String fieldValue = device.get(keys[i]);
+      if (fieldValue == null) {
+        logger.error("Identifier field " + keys[i] + " was not found.");
+        return false;
+      }
+
+      if (!patterns[i].matcher(fieldValue).matches()) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    return "CompiledWatcher [name=" + watcher.getName() + ", indexKey=" + indexKey
+        + ", indexPrefix=" + indexPrefix + "]";
+  }
+}
@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.domain;
+
+public class ConnectionStatus {
+
+  private String name;
+  private boolean connected;
+  private long disconnects;
+  private long reconnectAttempts;
+  private long reconnects;
+  private long lastGap;
+  private long totalGap;
+
+  public ConnectionStatus(String name, boolean connected, long disconnects, long reconnectAttempts,
+      long reconnects, long lastGap, long totalGap) {
+    this.name = name;
+    this.connected = connected;
+    this.disconnects = disconnects;
+    this.reconnectAttempts = reconnectAttempts;
+    this.reconnects = reconnects;
+    this.lastGap = lastGap;
+    this.totalGap = totalGap;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public boolean isConnected() {
+    return connected;
+  }
+
+  public long getDisconnects() {
+    return disconnects;
+  }
+
+  public long getReconnectAttempts() {
+    return reconnectAttempts;
+  }
+
+  public long getReconnects() {
+    return reconnects;
+  }
+
+  // milliseconds between the last connection loss and the reconnect
+  public long getLastGap() {
+    return lastGap;
+  }
+
+  // milliseconds spent disconnected since start up
+  public long getTotalGap() {
+    return totalGap;
+  }
+
+  @Override
+  public String toString() {
+    return "ConnectionStatus [name=" + name + ", connected=" + connected + ", disconnects="
+        + disconnects + ", reconnects=" + reconnects + ", lastGap=" + lastGap + "]";
+  }
+}
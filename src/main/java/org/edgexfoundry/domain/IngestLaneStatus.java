@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.domain;
+
+public class IngestLaneStatus {
+
+  private int lane;
+  private int queueDepth;
+  private int remainingCapacity;
+  private long processed;
+  private double throughput;
+
+  public IngestLaneStatus(int lane, int queueDepth, int remainingCapacity, long processed,
+      double throughput) {
+    this.lane = lane;
+    this.queueDepth = queueDepth;
+    this.remainingCapacity = remainingCapacity;
+    this.processed = processed;
+    this.throughput = throughput;
+  }
+
+  public int getLane() {
+    return lane;
+  }
+
+  public int getQueueDepth() {
+    return queueDepth;
+  }
+
+  public int getRemainingCapacity() {
+    return remainingCapacity;
+  }
+
+  public long getProcessed() {
+    return processed;
+  }
+
+  // messages per second since the previous status request
+  public double getThroughput() {
+    return throughput;
+  }
+
+  @Override
+  public String toString() {
+    return "IngestLaneStatus [lane=" + lane + ", queueDepth=" + queueDepth + ", processed="
+        + processed + ", throughput=" + throughput + "]";
+  }
+}
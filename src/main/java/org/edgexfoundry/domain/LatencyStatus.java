@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.domain;
+
+// latencies are in microseconds
+public class LatencyStatus {
+
+  private String name;
+  private long count;
+  private double mean;
+  private double p50;
+  private double p90;
+  private double p99;
+  private double p999;
+  private double max;
+
+  public LatencyStatus(String name, long count, double mean, double p50, double p90, double p99,
+      double p999, double max) {
+    this.name = name;
+    this.count = count;
+    this.mean = mean;
+    this.p50 = p50;
+    this.p90 = p90;
+    this.p99 = p99;
+    this.p999 = p999;
+    this.max = max;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public double getMean() {
+    return mean;
+  }
+
+  public double getP50() {
+    return p50;
+  }
+
+  public double getP90() {
+    return p90;
+  }
+
+  public double getP99() {
+    return p99;
+  }
+
+  public double getP999() {
+    return p999;
+  }
+
+  public double getMax() {
+    return max;
+  }
+
+  @Override
+  public String toString() {
+    return "LatencyStatus [name=" + name + ", count=" + count + ", p50=" + p50 + ", p99=" + p99
+        + ", max=" + max + "]";
+  }
+}
@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.domain;
+
+import java.util.List;
+import java.util.Map;
+
+public class MetricsStatus {
+
+  private Map<String, Long> messages;
+  private Map<String, Double> messageRates;
+  private Map<String, Long> counters;
+  private Map<String, Long> gauges;
+  private List<LatencyStatus> stages;
+  private List<LatencyStatus> commands;
+
+  public MetricsStatus(Map<String, Long> messages, Map<String, Double> messageRates,
+      Map<String, Long> counters, Map<String, Long> gauges, List<LatencyStatus> stages,
+      List<LatencyStatus> commands) {
+    this.messages = messages;
+    this.messageRates = messageRates;
+    this.counters = counters;
+    this.gauges = gauges;
+    this.stages = stages;
+    this.commands = commands;
+  }
+
+  // messages received per topic
+  public Map<String, Long> getMessages() {
+    return messages;
+  }
+
+  // messages per second per topic since the previous metrics request
+  public Map<String, Double> getMessageRates() {
+    return messageRates;
+  }
+
+  public Map<String, Long> getCounters() {
+    return counters;
+  }
+
+  // current queue depths and sizes
+  public Map<String, Long> getGauges() {
+    return gauges;
+  }
+
+  // latency of each pipeline stage
+  public List<LatencyStatus> getStages() {
+    return stages;
+  }
+
+  // command round trip per device
+  public List<LatencyStatus> getCommands() {
+    return commands;
+  }
+}
@@ -32,6 +32,20 @@ public class MqttAttribute {
 
   private String name;
 
+  // the value arrives as a JSON array of samples, decoded and transformed as one batch
+  private Boolean array;
+
+  // when incoming values are reported to core data, see ReportFilter
+  private Double deadband;
+  private Double deadbandPercent;
+  private Boolean onChange;
+  private Long minInterval;
+  private Long maxInterval;
+
+  // windows incoming values are summarised over, see Aggregation
+  private Long aggregate;
+  private Long aggregateSlide;
+
   public MqttAttribute(Object attributes) {
     try {
       Gson gson = new Gson();
@@ -39,6 +53,14 @@ public class MqttAttribute {
       MqttAttribute thisObject = gson.fromJson(jsonString, this.getClass());
 
       this.setName(thisObject.getName());
+      this.setArray(thisObject.getArray());
+      this.setDeadband(thisObject.getDeadband());
+      this.setDeadbandPercent(thisObject.getDeadbandPercent());
+      this.setOnChange(thisObject.getOnChange());
+      this.setMinInterval(thisObject.getMinInterval());
+      this.setMaxInterval(thisObject.getMaxInterval());
+      this.setAggregate(thisObject.getAggregate());
+      this.setAggregateSlide(thisObject.getAggregateSlide());
 
     } catch (Exception e) {
       logger.error("Cannot Construct MqttAttribute: " + e.getMessage());
@@ -55,5 +77,72 @@ public class MqttAttribute {
     this.name = name;
   }
 
-}
+  public Boolean getArray() {
+    return array;
+  }
+
+  public void setArray(Boolean array) {
+    this.array = array;
+  }
+
+  public boolean isArray() {
+    return Boolean.TRUE.equals(array);
+  }
+
+  public Double getDeadband() {
+    return deadband;
+  }
+
+  public void setDeadband(Double deadband) {
+    this.deadband = deadband;
+  }
+
+  public Double getDeadbandPercent() {
+    return deadbandPercent;
+  }
+
+  public void setDeadbandPercent(Double deadbandPercent) {
+    this.deadbandPercent = deadbandPercent;
+  }
+
+  public Boolean getOnChange() {
+    return onChange;
+  }
 
+  public void setOnChange(Boolean onChange) {
+    this.onChange = onChange;
+  }
+
+  public Long getMinInterval() {
+    return minInterval;
+  }
+
+  public void setMinInterval(Long minInterval) {
+    this.minInterval = minInterval;
+  }
+
+  public Long getMaxInterval() {
+    return maxInterval;
+  }
+
+  public void setMaxInterval(Long maxInterval) {
+    this.maxInterval = maxInterval;
+  }
+
+  public Long getAggregate() {
+    return aggregate;
+  }
+
+  public void setAggregate(Long aggregate) {
+    this.aggregate = aggregate;
+  }
+
+  public Long getAggregateSlide() {
+    return aggregateSlide;
+  }
+
+  public void setAggregateSlide(Long aggregateSlide) {
+    this.aggregateSlide = aggregateSlide;
+  }
+
+}
@@ -19,18 +19,44 @@
 package org.edgexfoundry.domain;
 
 import org.edgexfoundry.domain.meta.DeviceObject;
+import org.edgexfoundry.mqtt.CompiledTransform;
 
 @SuppressWarnings("serial")
 public class MqttObject extends DeviceObject {
 
   private MqttAttribute attributes;
 
+  // value transform resolved from the properties once, not on every reading
+  private final transient CompiledTransform transform;
+
+  // when incoming values are reported, null to report every one
+  private final transient ReportFilter filter;
+
+  // windows incoming values are summarised over, null to pass on each value
+  private final transient Aggregation aggregation;
+
   public MqttObject(DeviceObject object) {
     this.setName(object.getName());
     this.setTag(object.getTag());
     this.setDescription(object.getDescription());
     this.setProperties(object.getProperties());
     this.setAttributes(new MqttAttribute(object.getAttributes()));
+    this.transform = object.getProperties() == null || object.getProperties().getValue() == null
+        ? null : CompiledTransform.compile(object.getProperties().getValue());
+    this.filter = ReportFilter.compile(attributes);
+    this.aggregation = Aggregation.compile(attributes);
+  }
+
+  public CompiledTransform getTransform() {
+    return transform;
+  }
+
+  public ReportFilter getFilter() {
+    return filter;
+  }
+
+  public Aggregation getAggregation() {
+    return aggregation;
   }
 
   @Override
@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.domain;
+
+/**
+ * The value of one reading inside the service. Numbers and booleans are held as primitives and
+ * only rendered as a string for core data or a REST response; anything else is held as the string
+ * it arrived as. The string form is the one the transforms have always produced.
+ */
+public final class ReadingValue {
+
+  public enum Kind {
+    LONG, DOUBLE, BOOLEAN, STRING
+  }
+
+  private static final ReadingValue TRUE = new ReadingValue(Kind.BOOLEAN, 1, null);
+  private static final ReadingValue FALSE = new ReadingValue(Kind.BOOLEAN, 0, null);
+
+  private final Kind kind;
+  private final long bits;
+  private final String text;
+
+  private ReadingValue(Kind kind, long bits, String text) {
+    this.kind = kind;
+    this.bits = bits;
+    this.text = text;
+  }
+
+  public static ReadingValue of(long value) {
+    return new ReadingValue(Kind.LONG, value, null);
+  }
+
+  public static ReadingValue of(double value) {
+    return new ReadingValue(Kind.DOUBLE, Double.doubleToRawLongBits(value), null);
+  }
+
+  public static ReadingValue of(boolean value) {
+    return value ? TRUE : FALSE;
+  }
+
+  public static ReadingValue of(String value) {
+    return new ReadingValue(Kind.STRING, 0, value);
+  }
+
+  // rebuild a value from its kind and primitive bits, as stored by of(long) and of(double)
+  public static ReadingValue of(Kind kind, long bits, String text) {
+    switch (kind) {
+      case LONG:
+      case DOUBLE:
+        return new ReadingValue(kind, bits, null);
+      case BOOLEAN:
+        return bits != 0 ? TRUE : FALSE;
+      default:
+        return of(text);
+    }
+  }
+
+  /**
+   * Use a primitive slot when the string is exactly how that primitive renders, so that toString
+   * gives back the original string; otherwise keep the string.
+   */
+  public static ReadingValue parse(String value) {
+    if (value != null && !value.isEmpty()) {
+      char first = value.charAt(0);
+      if ((first >= '0' && first <= '9') || first == '-') {
+        try {
+          long longValue = Long.parseLong(value);
+          if (Long.toString(longValue).equals(value)) {
+            return of(longValue);
+          }
+        } catch (NumberFormatException e) {
+          // not an integer, try a double below
+        }
+
+        try {
+          double doubleValue = Double.parseDouble(value);
+          if (Double.toString(doubleValue).equals(value)) {
+            return of(doubleValue);
+          }
+        } catch (NumberFormatException e) {
+          // keep as a string
+        }
+      } else if (value.equals("true") || value.equals("false")) {
+        return of(value.equals("true"));
+      }
+    }
+
+    return of(value);
+  }
+
+  public Kind getKind() {
+    return kind;
+  }
+
+  public boolean isNumeric() {
+    return kind == Kind.LONG || kind == Kind.DOUBLE;
+  }
+
+  // raw primitive bits, the long itself or the bits of the double
+  public long getBits() {
+    return bits;
+  }
+
+  public long getLong() {
+    return kind == Kind.DOUBLE ? (long) Double.longBitsToDouble(bits) : bits;
+  }
+
+  public double getDouble() {
+    return kind == Kind.DOUBLE ? Double.longBitsToDouble(bits) : bits;
+  }
+
+  public boolean getBoolean() {
+    return kind == Kind.STRING ? Boolean.parseBoolean(text) : bits != 0;
+  }
+
+  @Override
+  public String toString() {
+    switch (kind) {
+      case LONG:
+        return Long.toString(bits);
+      case DOUBLE:
+        return Double.toString(Double.longBitsToDouble(bits));
+      case BOOLEAN:
+        return bits != 0 ? "true" : "false";
+      default:
+        return text;
+    }
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof ReadingValue)) {
+      return false;
+    }
+    ReadingValue other = (ReadingValue) obj;
+    if (kind != other.kind) {
+      return false;
+    }
+    return kind == Kind.STRING ? text == null ? other.text == null : text.equals(other.text)
+        : bits == other.bits;
+  }
+
+  @Override
+  public int hashCode() {
+    return kind == Kind.STRING ? text == null ? 0 : text.hashCode() : Long.hashCode(bits);
+  }
+}
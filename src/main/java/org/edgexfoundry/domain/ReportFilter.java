@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.domain;
+
+/**
+ * When an incoming value of a device object is passed on to core data, resolved once from the
+ * object's profile attributes:
+ *
+ * deadband - report a number only when it moves further than this from the last reported value
+ *
+ * deadbandPercent - the same, as a percentage of the last reported value; with both set the wider
+ * band applies
+ *
+ * onChange - report only values that differ from the last reported value
+ *
+ * minInterval - milliseconds after a report during which further values are held back
+ *
+ * maxInterval - milliseconds after which a value is reported even if it has not changed
+ *
+ * Values held back are still cached and served to commands.
+ */
+public final class ReportFilter {
+
+  private final double deadband;
+  private final double deadbandPercent;
+  private final boolean onChange;
+  private final long minInterval;
+  private final long maxInterval;
+
+  private ReportFilter(double deadband, double deadbandPercent, boolean onChange,
+      long minInterval, long maxInterval) {
+    this.deadband = deadband;
+    this.deadbandPercent = deadbandPercent;
+    this.onChange = onChange;
+    this.minInterval = minInterval;
+    this.maxInterval = maxInterval;
+  }
+
+  /**
+   * @return the filter of the attributes, or null if they do not set one
+   */
+  public static ReportFilter compile(MqttAttribute attributes) {
+    if (attributes == null) {
+      return null;
+    }
+
+    double deadband = positive(attributes.getDeadband());
+    double deadbandPercent = positive(attributes.getDeadbandPercent());
+    boolean onChange = Boolean.TRUE.equals(attributes.getOnChange()) || deadband > 0
+        || deadbandPercent > 0;
+    long minInterval = (long) positive(attributes.getMinInterval());
+    long maxInterval = (long) positive(attributes.getMaxInterval());
+
+    if (!onChange && minInterval == 0) {
+      // every value is reported anyway
+      return null;
+    }
+
+    return new ReportFilter(deadband, deadbandPercent, onChange, minInterval, maxInterval);
+  }
+
+  private static double positive(Number value) {
+    return value == null || value.doubleValue() < 0 ? 0 : value.doubleValue();
+  }
+
+  /**
+   * @param last the last reported value, null if none has been
+   * @param lastTime when it was reported, in milliseconds
+   * @return true if the value should be reported at now
+   */
+  public boolean passes(ReadingValue last, long lastTime, ReadingValue value, long now) {
+    if (last == null) {
+      return true;
+    }
+
+    long elapsed = now - lastTime;
+    if (elapsed < minInterval) {
+      return false;
+    }
+    if (!onChange || (maxInterval > 0 && elapsed >= maxInterval)) {
+      return true;
+    }
+
+    if (value.isNumeric() && last.isNumeric()) {
+      double band = Math.max(deadband, Math.abs(last.getDouble()) * deadbandPercent / 100);
+      double change = Math.abs(value.getDouble() - last.getDouble());
+      return band > 0 ? change > band : change != 0;
+    }
+
+    return !value.equals(last);
+  }
+
+  @Override
+  public String toString() {
+    return "ReportFilter [deadband=" + deadband + ", deadbandPercent=" + deadbandPercent
+        + ", onChange=" + onChange + ", minInterval=" + minInterval + ", maxInterval="
+        + maxInterval + "]";
+  }
+}
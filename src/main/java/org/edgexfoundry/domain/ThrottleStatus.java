@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.domain;
+
+public class ThrottleStatus {
+
+  private String device;
+  private String profile;
+  private double limit;
+  private double burst;
+  private long admitted;
+  private long throttled;
+  private long sampled;
+
+  public ThrottleStatus(String device, String profile, double limit, double burst, long admitted,
+      long throttled, long sampled) {
+    this.device = device;
+    this.profile = profile;
+    this.limit = limit;
+    this.burst = burst;
+    this.admitted = admitted;
+    this.throttled = throttled;
+    this.sampled = sampled;
+  }
+
+  public String getDevice() {
+    return device;
+  }
+
+  public String getProfile() {
+    return profile;
+  }
+
+  // messages a second, 0 for no limit
+  public double getLimit() {
+    return limit;
+  }
+
+  public double getBurst() {
+    return burst;
+  }
+
+  public long getAdmitted() {
+    return admitted;
+  }
+
+  // messages dropped over the limit
+  public long getThrottled() {
+    return throttled;
+  }
+
+  // messages over the limit let through by the sample policy
+  public long getSampled() {
+    return sampled;
+  }
+
+  @Override
+  public String toString() {
+    return "ThrottleStatus [device=" + device + ", limit=" + limit + ", admitted=" + admitted
+        + ", throttled=" + throttled + ", sampled=" + sampled + "]";
+  }
+}
@@ -29,6 +29,8 @@ import org.edgexfoundry.domain.core.Reading;
 public class Transaction {
   private String transactionId;
   private List<Reading> readings;
+  // readings answered from the object cache, already sent to core data when they arrived
+  private List<Reading> cachedReadings = new ArrayList<>();
   private Map<String, Boolean> opIds;
   private Boolean finished = true;
 
@@ -55,6 +57,17 @@ public class Transaction {
 
   public void finishOp(String opId, List<Reading> readings) {
     addReadings(readings);
+    finish(opId);
+  }
+
+  public void finishCachedOp(String opId, List<Reading> readings) {
+    if (readings != null) {
+      cachedReadings.addAll(readings);
+    }
+    finish(opId);
+  }
+
+  private void finish(String opId) {
     opIds.put(opId, true);
 
     if (!opIds.values().contains(false)) {
@@ -74,6 +87,10 @@ public class Transaction {
     return readings;
   }
 
+  public List<Reading> getCachedReadings() {
+    return cachedReadings;
+  }
+
   private void addReadings(List<Reading> readings) {
     if (readings != null) {
       this.readings.addAll(readings);
@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.handler;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.edgexfoundry.metrics.MetricsRegistry;
+import org.edgexfoundry.support.logging.client.EdgeXLogger;
+import org.edgexfoundry.support.logging.client.EdgeXLoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies metadata callbacks off the servlet thread. Work is keyed by the entity it changes: work
+ * for one entity runs in the order it arrived and never concurrently, and work that arrives while
+ * earlier work for the same entity is still waiting replaces it, so a burst of updates to one
+ * device is applied once.
+ */
+@Component
+public class CallbackQueue {
+
+  private static final EdgeXLogger logger = EdgeXLoggerFactory.getEdgeXLogger(CallbackQueue.class);
+
+  // workers applying callbacks; with one, callbacks for different entities also keep their order
+  @Value("${callback.threads:1}")
+  private int threads;
+
+  @Autowired
+  private MetricsRegistry metrics;
+
+  private final Object lock = new Object();
+
+  // entity key to the latest work waiting for it, guarded by lock
+  private final Map<String, Runnable> pending = new HashMap<>();
+
+  // entities with work running, guarded by lock
+  private final Set<String> running = new HashSet<>();
+
+  // entities with pending work that is not running, in arrival order
+  private final BlockingQueue<String> ready = new LinkedBlockingQueue<>();
+
+  private final AtomicLong submitted = new AtomicLong();
+  private final AtomicLong coalesced = new AtomicLong();
+  private final AtomicLong completed = new AtomicLong();
+
+  private ExecutorService executor;
+
+  @PostConstruct
+  public void init() {
+    int count = Math.max(threads, 1);
+    AtomicInteger index = new AtomicInteger();
+    executor = Executors.newFixedThreadPool(count, r -> {
+      Thread thread = new Thread(r, "callback-" + index.getAndIncrement());
+      thread.setDaemon(true);
+      return thread;
+    });
+    for (int i = 0; i < count; i++) {
+      executor.execute(this::work);
+    }
+    metrics.gauge("callback_queue_depth", this::getQueueDepth);
+  }
+
+  @PreDestroy
+  public void cleanup() {
+    executor.shutdownNow();
+  }
+
+  public void submit(String key, Runnable work) {
+    submitted.incrementAndGet();
+    synchronized (lock) {
+      if (pending.put(key, work) != null) {
+        coalesced.incrementAndGet();
+      } else if (!running.contains(key)) {
+        ready.add(key);
+      }
+    }
+  }
+
+  private void work() {
+    while (!Thread.currentThread().isInterrupted()) {
+      String key;
+      Runnable work;
+      try {
+        key = ready.take();
+      } catch (InterruptedException e) {
+        return;
+      }
+
+      synchronized (lock) {
+        work = pending.remove(key);
+        running.add(key);
+      }
+
+      try {
+        if (work != null) {
+          work.run();
+        }
+      } catch (Exception e) {
+        logger.error("Problem applying callback for " + key + ": " + e.getMessage());
+      } finally {
+        completed.incrementAndGet();
+        synchronized (lock) {
+          running.remove(key);
+          // work that arrived while this ran goes to the back of the queue
+          if (pending.containsKey(key)) {
+            ready.add(key);
+          }
+        }
+      }
+    }
+  }
+
+  public int getQueueDepth() {
+    synchronized (lock) {
+      return pending.size();
+    }
+  }
+
+  public long getSubmitted() {
+    return submitted.get();
+  }
+
+  public long getCoalesced() {
+    return coalesced.get();
+  }
+
+  public long getCompleted() {
+    return completed.get();
+  }
+}
@@ -47,6 +47,15 @@ public class CommandHandler {
   Initializer init;
 
   public Map<String, String> getResponse(String deviceId, String cmd, String arguments) {
+    return getResponse(deviceId, cmd, arguments, null);
+  }
+
+  /**
+   * @param maxAge milliseconds a cached value may be served instead of querying the device, or null
+   *        for the configured max age of the command
+   */
+  public Map<String, String> getResponse(String deviceId, String cmd, String arguments,
+      Long maxAge) {
     if (init.isServiceLocked()) {
       logger.error("GET request cmd: " + cmd + " with device service locked on: " + deviceId);
       throw new LockedException(
@@ -60,7 +69,7 @@ public class CommandHandler {
 
     Device device = devices.getDeviceById(deviceId);
     if (mqtt.commandExists(device, cmd)) {
-      return mqtt.executeCommand(device, cmd, arguments);
+      return mqtt.executeCommand(device, cmd, arguments, maxAge);
     } else {
       logger.error("Command: " + cmd + " does not exist for device with id: " + deviceId);
       throw new NotFoundException("Command", cmd);
@@ -68,6 +77,10 @@ public class CommandHandler {
   }
 
   public Map<String, String> getResponses(String cmd, String arguments) {
+    return getResponses(cmd, arguments, null);
+  }
+
+  public Map<String, String> getResponses(String cmd, String arguments, Long maxAge) {
     Map<String, String> responses = new HashMap<>();
 
     if (init.isServiceLocked()) {
@@ -83,7 +96,7 @@ public class CommandHandler {
 
       Device device = devices.getDeviceById(deviceId);
       if (mqtt.commandExists(device, cmd)) {
-        responses.putAll(mqtt.executeCommand(device, cmd, arguments));
+        responses.putAll(mqtt.executeCommand(device, cmd, arguments, maxAge));
       }
     }
     return responses;
@@ -19,19 +19,19 @@
 package org.edgexfoundry.handler;
 
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.List;
 import java.util.Map;
 
-import org.edgexfoundry.controller.DeviceClient;
 import org.edgexfoundry.controller.EventClient;
 import org.edgexfoundry.data.DeviceStore;
 import org.edgexfoundry.domain.MqttObject;
 import org.edgexfoundry.domain.ResponseObject;
 import org.edgexfoundry.domain.core.Event;
 import org.edgexfoundry.domain.core.Reading;
-import org.edgexfoundry.domain.meta.Device;
 import org.edgexfoundry.domain.meta.OperatingState;
+import org.edgexfoundry.metrics.MetricsRegistry;
+import org.edgexfoundry.metrics.MetricsRegistry.Counter;
+import org.edgexfoundry.metrics.MetricsRegistry.Stage;
 import org.edgexfoundry.support.logging.client.EdgeXLogger;
 import org.edgexfoundry.support.logging.client.EdgeXLoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -49,15 +49,18 @@ public class CoreDataMessageHandler {
   @Value("${service.connect.wait}")
   private long delay;
 
-  @Autowired
-  private DeviceClient deviceClient;
-
   @Autowired
   private EventClient eventClient;
 
   @Autowired
   private DeviceStore devices;
 
+  @Autowired
+  private MetricsRegistry metrics;
+
+  @Autowired
+  private LastConnectedTracker lastConnected;
+
   public Reading buildReading(String key, String value, String deviceName) {
     Reading reading = new Reading();
     reading.setName(key);
@@ -98,35 +101,32 @@ public class CoreDataMessageHandler {
     return false;
   }
 
-  private void updateLastConnected(String deviceName) {
-    Device device = devices.getDevice(deviceName);
-    if (device != null) {
-      deviceClient.updateLastConnected(device.getId(), Calendar.getInstance().getTimeInMillis());
-      if (device.getOperatingState().equals(OperatingState.DISABLED)) {
-        devices.setDeviceByIdOpState(device.getId(), OperatingState.ENABLED);
-      }
-    } else {
-      logger.debug("No device found for device name: " + deviceName
-          + ". Could not update last connected time");
-    }
-  }
-
   public List<ResponseObject> sendCoreData(String deviceName, List<Reading> readings,
       Map<String, MqttObject> objects) {
 
+    if (readings == null || readings.isEmpty()) {
+      logger.debug("No readings for the device " + deviceName + ".  No event sent.");
+      return new ArrayList<>();
+    }
+
     try {
 
       if (objects != null) {
         List<ResponseObject> resps = new ArrayList<>();
-        logger.debug("readings: " + readings);
+        if (logger.isDebugEnabled()) {
+          logger.debug("readings: " + readings);
+        }
         for (Reading reading : readings) {
           ResponseObject resp = new ResponseObject(reading.getName(), reading.getValue());
           resps.add(resp);
         }
 
+        long start = System.nanoTime();
         boolean success = sendEvent(buildEvent(deviceName, readings), 0);
+        metrics.record(Stage.CORE_DATA, start);
+        metrics.increment(success ? Counter.EVENTS_SENT : Counter.EVENTS_FAILED);
         if (success) {
-          updateLastConnected(deviceName);
+          lastConnected.connected(deviceName);
           return resps;
         } else {
           if (devices.getDevice(deviceName).getOperatingState().equals(OperatingState.ENABLED)) {
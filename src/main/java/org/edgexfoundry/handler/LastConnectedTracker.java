@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.handler;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.ws.rs.NotFoundException;
+
+import org.edgexfoundry.controller.DeviceClient;
+import org.edgexfoundry.data.DeviceStore;
+import org.edgexfoundry.domain.meta.Device;
+import org.edgexfoundry.domain.meta.OperatingState;
+import org.edgexfoundry.metrics.MetricsRegistry;
+import org.edgexfoundry.metrics.MetricsRegistry.Counter;
+import org.edgexfoundry.support.logging.client.EdgeXLogger;
+import org.edgexfoundry.support.logging.client.EdgeXLoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the time each device last sent an event and passes it on to metadata once per flush
+ * interval, so a device reporting many times a second costs one last connected update per interval
+ * rather than one per event. Disabled devices that are heard from again are re-enabled on the
+ * flush thread, off the ingest path.
+ */
+@Component
+public class LastConnectedTracker {
+
+  private static final EdgeXLogger logger =
+      EdgeXLoggerFactory.getEdgeXLogger(LastConnectedTracker.class);
+
+  // milliseconds between updates of last connected times in metadata
+  @Value("${device.lastconnected.interval:30000}")
+  private long flushInterval;
+
+  @Autowired
+  private DeviceClient deviceClient;
+
+  @Autowired
+  private DeviceStore devices;
+
+  @Autowired
+  private MetricsRegistry metrics;
+
+  // device id to the latest time not yet sent to metadata
+  private final Map<String, Long> pending = new ConcurrentHashMap<>();
+
+  // device ids waiting to be re-enabled
+  private final Set<String> enabling = ConcurrentHashMap.newKeySet();
+
+  private ScheduledExecutorService executor;
+
+  @PostConstruct
+  public void init() {
+    executor = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "last-connected");
+      thread.setDaemon(true);
+      return thread;
+    });
+    long interval = Math.max(flushInterval, 1);
+    executor.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+    metrics.gauge("last_connected_pending", this::getPendingCount);
+    devices.addRemovalListener(device -> remove(device.getId()));
+  }
+
+  @PreDestroy
+  public void cleanup() {
+    executor.shutdownNow();
+    // pass on what has been seen since the last flush
+    flush();
+  }
+
+  /**
+   * Record that the device was heard from now. Returns without calling metadata.
+   */
+  public void connected(String deviceName) {
+    Device device = devices.getDevice(deviceName);
+    if (device == null) {
+      logger.debug("No device found for device name: " + deviceName
+          + ". Could not update last connected time");
+      return;
+    }
+
+    pending.put(device.getId(), System.currentTimeMillis());
+    if (OperatingState.DISABLED.equals(device.getOperatingState())
+        && enabling.add(device.getId())) {
+      executor.execute(() -> enable(device));
+    }
+  }
+
+  // forget a device that is no longer managed
+  public void remove(String deviceId) {
+    pending.remove(deviceId);
+    enabling.remove(deviceId);
+  }
+
+  public int getPendingCount() {
+    return pending.size();
+  }
+
+  void flush() {
+    for (String deviceId : pending.keySet()) {
+      Long time = pending.remove(deviceId);
+      if (time == null) {
+        continue;
+      }
+
+      try {
+        deviceClient.updateLastConnected(deviceId, time);
+        metrics.increment(Counter.LAST_CONNECTED_UPDATES);
+      } catch (NotFoundException e) {
+        logger.info("Device " + deviceId + " is gone from metadata, last connected time dropped");
+      } catch (Exception e) {
+        // keep it for the next flush unless the device has been heard from or removed since
+        if (devices.getDeviceById(deviceId) != null) {
+          pending.putIfAbsent(deviceId, time);
+        }
+        logger.error("Could not update last connected time for device " + deviceId + ": "
+            + e.getMessage());
+      }
+    }
+  }
+
+  private void enable(Device device) {
+    try {
+      devices.setDeviceByIdOpState(device.getId(), OperatingState.ENABLED);
+      // so that the next events do not enable it again before metadata calls back
+      device.setOperatingState(OperatingState.ENABLED);
+    } catch (Exception e) {
+      logger.error("Could not enable device " + device.getName() + ": " + e.getMessage());
+    } finally {
+      enabling.remove(device.getId());
+    }
+  }
+}
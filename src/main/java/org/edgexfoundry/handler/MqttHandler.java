@@ -23,6 +23,11 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
 
 import org.edgexfoundry.data.ObjectStore;
 import org.edgexfoundry.data.ProfileStore;
@@ -36,6 +41,9 @@ import org.edgexfoundry.domain.meta.PropertyValue;
 import org.edgexfoundry.domain.meta.ResourceOperation;
 import org.edgexfoundry.exception.controller.NotFoundException;
 import org.edgexfoundry.exception.controller.ServiceException;
+import org.edgexfoundry.metrics.MetricsRegistry;
+import org.edgexfoundry.metrics.MetricsRegistry.Counter;
+import org.edgexfoundry.metrics.MetricsRegistry.Stage;
 import org.edgexfoundry.mqtt.DeviceDiscovery;
 import org.edgexfoundry.mqtt.MqttDriver;
 import org.edgexfoundry.mqtt.ObjectTransform;
@@ -43,6 +51,7 @@ import org.edgexfoundry.support.logging.client.EdgeXLogger;
 import org.edgexfoundry.support.logging.client.EdgeXLoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 
 import com.google.gson.JsonElement;
@@ -72,6 +81,17 @@ public class MqttHandler {
   @Autowired
   private CoreDataMessageHandler processor;
 
+  @Autowired
+  private MetricsRegistry metrics;
+
+  @Autowired
+  private Environment environment;
+
+  // milliseconds a cached value may be served to a GET command instead of querying the device,
+  // 0 to always query; command.cache.maxage.<command name> overrides it for a command
+  @Value("${command.cache.maxage:0}")
+  private long cacheMaxAge;
+
   @Value("${mqtt.device.init:#{null}}")
   private String mqttInit;
   @Value("${mqtt.device.init.args:#{null}}")
@@ -81,7 +101,14 @@ public class MqttHandler {
   @Value("${mqtt.device.remove.args:#{null}}")
   private String mqttRemoveArgs;
 
-  public Map<String, Transaction> transactions = new HashMap<>();
+  // written from the REST threads and every ingest lane
+  public Map<String, Transaction> transactions = new ConcurrentHashMap<>();
+
+  @PostConstruct
+  public void init() {
+    metrics.gauge("open_transactions", transactions::size);
+    metrics.gauge("cache_hit_percent", this::getCacheHitPercent);
+  }
 
   public void initialize() {
     if (driver != null) {
@@ -109,7 +136,9 @@ public class MqttHandler {
   public void scan() {
     ScanList availableList = null;
     availableList = driver.discover();
-    discover.provision(availableList);
+    Set<String> failed = discover.provision(availableList);
+    // remember what was provisioned so that repeated announcements of it are not scanned again
+    driver.provisioned(availableList, failed);
   }
 
   public boolean commandExists(Device device, String command) {
@@ -124,12 +153,21 @@ public class MqttHandler {
   }
 
   public Map<String, String> executeCommand(Device device, String cmd, String arguments) {
-    // set immediate flag to false to read from object cache of last readings
-    Boolean immediate = true;
+    return executeCommand(device, cmd, arguments, null);
+  }
+
+  /**
+   * @param maxAge milliseconds a cached value may be served instead of querying the device, 0 to
+   *        always query, or null for the configured max age of the command
+   */
+  public Map<String, String> executeCommand(Device device, String cmd, String arguments,
+      Long maxAge) {
+    long age = maxAge != null ? maxAge : getCacheMaxAge(cmd);
     Transaction transaction = new Transaction();
     String transactionId = transaction.getTransactionId();
+    long start = System.nanoTime();
     transactions.put(transactionId, transaction);
-    executeOperations(device, cmd, arguments, immediate, transactionId);
+    executeOperations(device, cmd, arguments, age, transactionId);
 
     synchronized (transactions) {
       while (!transactions.get(transactionId).isFinished()) {
@@ -141,11 +179,9 @@ public class MqttHandler {
         }
       }
     }
+    metrics.record(Stage.TRANSACTION, start);
 
-    List<Reading> readings = transactions.get(transactionId).getReadings();
-    transactions.remove(transactionId);
-
-    return sendTransaction(device.getName(), readings);
+    return sendTransaction(device.getName(), transactions.remove(transactionId));
   }
 
   public Map<String, String> executeCommandGet(String transactionId, String deviceName) {
@@ -160,10 +196,17 @@ public class MqttHandler {
       }
     }
 
-    List<Reading> readings = transactions.get(transactionId).getReadings();
-    transactions.remove(transactionId);
+    return sendTransaction(deviceName, transactions.remove(transactionId));
+  }
 
-    return sendTransaction(deviceName, readings);
+  // send the readings queried from the device to core data and answer with all of them; those
+  // served from the object cache were sent when they arrived and are not sent again
+  private Map<String, String> sendTransaction(String deviceName, Transaction transaction) {
+    Map<String, String> valueDescriptorMap = sendTransaction(deviceName, transaction.getReadings());
+    for (Reading reading : transaction.getCachedReadings()) {
+      valueDescriptorMap.put(reading.getName(), reading.getValue());
+    }
+    return valueDescriptorMap;
   }
 
   public Map<String, String> sendTransaction(String deviceName, List<Reading> readings) {
@@ -178,8 +221,26 @@ public class MqttHandler {
     return valueDescriptorMap;
   }
 
+  /**
+   * @return the max age of the command, from command.cache.maxage.[command name in lower case] as
+   *         commands are matched without regard to case, or else command.cache.maxage
+   */
+  public long getCacheMaxAge(String cmd) {
+    if (cmd == null) {
+      return cacheMaxAge;
+    }
+    return environment.getProperty("command.cache.maxage." + cmd.toLowerCase(), Long.class,
+        cacheMaxAge);
+  }
+
+  public long getCacheHitPercent() {
+    long hits = metrics.getCount(Counter.CACHE_HITS);
+    long total = hits + metrics.getCount(Counter.CACHE_MISSES);
+    return total == 0 ? 0 : hits * 100 / total;
+  }
+
   private void executeOperations(Device device, String commandName, String arguments,
-      Boolean immediate, String transactionId) {
+      long maxAge, String transactionId) {
     String method = (arguments == null) ? "get" : "set";
 
     String deviceName = device.getName();
@@ -195,9 +256,9 @@ public class MqttHandler {
       String opResource = operation.getResource();
       if (opResource != null) {
         if (operation.getOperation().equals("get")) {
-          executeOperations(device, opResource, null, immediate, transactionId);
+          executeOperations(device, opResource, null, maxAge, transactionId);
         } else {
-          executeOperations(device, opResource, arguments, immediate, transactionId);
+          executeOperations(device, opResource, arguments, maxAge, transactionId);
         }
         continue;
       }
@@ -218,30 +279,37 @@ public class MqttHandler {
       }
 
       // command operation for client processing
-      if (requiresQuery(immediate, method, device, operation)) {
+      if (requiresQuery(maxAge, method, device, operation)) {
         String opId = transactions.get(transactionId).newOpId();
         final String parameter = val;
         new Thread(() -> driver.process(operation, device, object, parameter, transactionId, opId))
             .start();
+      } else {
+        String opId = transactions.get(transactionId).newOpId();
+        completeCachedOperation(transactionId, opId, objectCache.getResponses(device, operation));
       }
     }
   }
 
-  private Boolean requiresQuery(boolean immediate, String method, Device device,
+  private Boolean requiresQuery(long maxAge, String method, Device device,
       ResourceOperation operation) {
-    // if the immediate flag is set
-    if (immediate) {
-      return true;
-    }
     // if the resource operation method is a set
     if (method.equals("set")) {
       return true;
     }
-    // if the objectCache has no values
-    if (objectCache.get(device, operation) == null) {
+    // if cached values are not accepted
+    if (maxAge <= 0) {
+      return true;
+    }
+    // if the objectCache has no values, or they are too old
+    long age = objectCache.getAge(device, operation);
+    if (age < 0 || age > maxAge) {
+      metrics.increment(Counter.CACHE_MISSES);
       return true;
     }
 
+    metrics.increment(Counter.CACHE_HITS);
+    metrics.recordNanos(Stage.CACHE_AGE, TimeUnit.MILLISECONDS.toNanos(age));
     return false;
   }
 
@@ -360,11 +428,25 @@ public class MqttHandler {
   }
 
   public void processJson(String json) {
+    if (json != null && json.length() > 0) {
+      if (logger.isDebugEnabled()) {
+        logger.debug("Mqtt data message rec'd:  " + json);
+      }
+      processJson(new JsonParser().parse(json).getAsJsonObject());
+    }
+  }
+
+  public void processJson(JsonObject json) {
     Transaction transaction = new Transaction();
     String transactionId = transaction.getTransactionId();
     transactions.put(transactionId, transaction);
     String opId = transactions.get(transactionId).newOpId();
-    driver.processJson(json, transactionId, opId);
+    try {
+      driver.processJson(json, transactionId, opId);
+    } finally {
+      // already gone once sent; left behind if the message was ignored or failed
+      transactions.remove(transactionId);
+    }
   }
 
   public void completeTransaction(String transactionId, String opId, List<Reading> readings) {
@@ -373,4 +455,12 @@ public class MqttHandler {
       transactions.notifyAll();
     }
   }
+
+  private void completeCachedOperation(String transactionId, String opId,
+      List<Reading> readings) {
+    synchronized (transactions) {
+      transactions.get(transactionId).finishCachedOp(opId, readings);
+      transactions.notifyAll();
+    }
+  }
 }
@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.edgexfoundry.domain.LatencyStatus;
+
+/**
+ * A lock-free latency histogram over nanoseconds with log-linear buckets, in the style of
+ * HdrHistogram. Every power of two is split into 2^precision equal buckets, so a value is counted
+ * within 1/2^precision of itself whatever its magnitude. Recording is a few shifts and two atomic
+ * adds, and never allocates.
+ */
+public final class Histogram {
+
+  // values above 2^40 ns (about 18 minutes) are counted in the last bucket
+  private static final int MAX_MAGNITUDE = 40;
+
+  private final int precision;
+  private final int subBuckets;
+  private final AtomicLongArray counts;
+  private final LongAdder sum = new LongAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  public Histogram(int precision) {
+    this.precision = precision;
+    this.subBuckets = 1 << precision;
+    this.counts = new AtomicLongArray((MAX_MAGNITUDE - precision + 2) * subBuckets);
+  }
+
+  public void record(long nanos) {
+    long value = nanos < 0 ? 0 : nanos;
+    counts.incrementAndGet(index(value));
+    sum.add(value);
+
+    long current = max.get();
+    while (value > current && !max.compareAndSet(current, value)) {
+      current = max.get();
+    }
+  }
+
+  int index(long value) {
+    if (value < subBuckets) {
+      return (int) value;
+    }
+
+    int magnitude = 63 - Long.numberOfLeadingZeros(value);
+    if (magnitude > MAX_MAGNITUDE) {
+      return counts.length() - 1;
+    }
+
+    int sub = (int) (value >>> (magnitude - precision)) & (subBuckets - 1);
+    return (magnitude - precision + 1) * subBuckets + sub;
+  }
+
+  // the highest value counted in the bucket
+  long highestValue(int index) {
+    if (index < subBuckets) {
+      return index;
+    }
+
+    int magnitude = index / subBuckets + precision - 1;
+    long width = 1L << (magnitude - precision);
+    return (1L << magnitude) + (index % subBuckets) * width + width - 1;
+  }
+
+  /**
+   * @return the count, mean, percentiles and maximum recorded so far, in microseconds
+   */
+  public LatencyStatus status(String name) {
+    long[] snapshot = new long[counts.length()];
+    long total = 0;
+    for (int i = 0; i < snapshot.length; i++) {
+      snapshot[i] = counts.get(i);
+      total += snapshot[i];
+    }
+
+    double mean = total == 0 ? 0 : sum.sum() / (double) total / 1000;
+    return new LatencyStatus(name, total, mean, percentile(snapshot, total, 0.5),
+        percentile(snapshot, total, 0.9), percentile(snapshot, total, 0.99),
+        percentile(snapshot, total, 0.999), max.get() / 1000.0);
+  }
+
+  private double percentile(long[] snapshot, long total, double quantile) {
+    if (total == 0) {
+      return 0;
+    }
+
+    long rank = Math.max(1, (long) Math.ceil(quantile * total));
+    long seen = 0;
+    for (int i = 0; i < snapshot.length; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) {
+        return Math.min(highestValue(i), max.get()) / 1000.0;
+      }
+    }
+    return max.get() / 1000.0;
+  }
+}
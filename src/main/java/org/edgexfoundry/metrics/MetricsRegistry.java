@@ -0,0 +1,304 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.edgexfoundry.domain.LatencyStatus;
+import org.edgexfoundry.domain.MetricsStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Throughput and latency of the MQTT pipeline. Recording only touches striped counters and
+ * preallocated histograms, so it is safe on the ingest lanes and the Paho callback threads;
+ * everything that allocates happens when the metrics are read.
+ */
+@Component
+public class MetricsRegistry {
+
+  private static final String PREFIX = "device_mqtt_";
+
+  // buckets within 1/16 for the pipeline stages, 1/8 for the per device histograms
+  private static final int STAGE_PRECISION = 4;
+  private static final int DEVICE_PRECISION = 3;
+
+  public enum Stage {
+    // payload bytes to a JSON object
+    PARSE,
+    // waiting on the ingest lane
+    QUEUE,
+    // profile transforms of the values
+    TRANSFORM,
+    // object cache writes, excluding the transforms
+    STORE,
+    // posting an event until core data accepts it
+    CORE_DATA,
+    // arrival of an incoming message until its event is accepted by core data
+    END_TO_END,
+    // command request until the device responds
+    COMMAND,
+    // command transaction waiting for all of its operations
+    TRANSACTION,
+    // age of the cached values a GET command is answered with
+    CACHE_AGE;
+
+    final String label = name().toLowerCase();
+  }
+
+  public enum Counter {
+    EVENTS_SENT, EVENTS_FAILED, COMMANDS_FAILED,
+    // incoming messages over their device's rate limit, dropped or let through as a sample
+    MESSAGES_THROTTLED, MESSAGES_SAMPLED,
+    // last connected times written to metadata, at most one per device per flush interval
+    LAST_CONNECTED_UPDATES,
+    // incoming values held back by the report filter of their device object
+    READINGS_FILTERED,
+    // incoming values summarised into windows instead of sent one by one
+    READINGS_AGGREGATED,
+    // GET operations answered from the object cache, or sent to the device as the cached values
+    // were missing or older than the max age
+    CACHE_HITS, CACHE_MISSES;
+
+    final String label = name().toLowerCase();
+  }
+
+  @Value("${metrics.enabled:true}")
+  private boolean enabled;
+
+  // milliseconds of messages each reported rate is taken over
+  @Value("${metrics.rate.window:10000}")
+  private long rateWindow;
+
+  private final Histogram[] stages = new Histogram[Stage.values().length];
+  private final LongAdder[] counters = new LongAdder[Counter.values().length];
+  private final Map<String, LongAdder> messages = new ConcurrentHashMap<>();
+  private final Map<String, Histogram> commands = new ConcurrentHashMap<>();
+  private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+  // message counts when the current rate window started, and the rates over the last complete
+  // window, so every reader sees the same rates whoever read last; guarded by this
+  private Map<String, Long> windowCounts = new TreeMap<>();
+  private long windowStart = System.nanoTime();
+  private Map<String, Double> rates = new TreeMap<>();
+
+  public MetricsRegistry() {
+    for (int i = 0; i < stages.length; i++) {
+      stages[i] = new Histogram(STAGE_PRECISION);
+    }
+    for (int i = 0; i < counters.length; i++) {
+      counters[i] = new LongAdder();
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * Count a message received on a subscription. Pass the topic filter subscribed to rather than the
+   * topic of the message, so a wildcard subscription keeps one count rather than one per topic.
+   */
+  public void messageReceived(String topic) {
+    if (!enabled) {
+      return;
+    }
+
+    LongAdder count = messages.get(topic);
+    if (count == null) {
+      count = messages.computeIfAbsent(topic, t -> new LongAdder());
+    }
+    count.increment();
+  }
+
+  public void increment(Counter counter) {
+    if (enabled) {
+      counters[counter.ordinal()].increment();
+    }
+  }
+
+  public long getCount(Counter counter) {
+    return counters[counter.ordinal()].sum();
+  }
+
+  /**
+   * Record the time since start, a System.nanoTime() reading, against the stage.
+   */
+  public void record(Stage stage, long start) {
+    if (enabled) {
+      stages[stage.ordinal()].record(System.nanoTime() - start);
+    }
+  }
+
+  public void recordNanos(Stage stage, long nanos) {
+    if (enabled) {
+      stages[stage.ordinal()].record(nanos);
+    }
+  }
+
+  /**
+   * Record the round trip of a command to the device, started at start.
+   */
+  public void recordCommand(String deviceName, long start) {
+    if (!enabled) {
+      return;
+    }
+
+    long nanos = System.nanoTime() - start;
+    stages[Stage.COMMAND.ordinal()].record(nanos);
+
+    Histogram histogram = commands.get(deviceName);
+    if (histogram == null) {
+      histogram = commands.computeIfAbsent(deviceName, name -> new Histogram(DEVICE_PRECISION));
+    }
+    histogram.record(nanos);
+  }
+
+  public void removeDevice(String deviceName) {
+    commands.remove(deviceName);
+  }
+
+  /**
+   * Report the value of supplier, read when the metrics are requested, under name.
+   */
+  public void gauge(String name, LongSupplier supplier) {
+    gauges.put(name, supplier);
+  }
+
+  /**
+   * @return the metrics, with message rates over the last complete rate window
+   */
+  public synchronized MetricsStatus getStatus() {
+    Map<String, Long> counts = new TreeMap<>();
+    for (Map.Entry<String, LongAdder> entry : messages.entrySet()) {
+      counts.put(entry.getKey(), entry.getValue().sum());
+    }
+
+    long now = System.nanoTime();
+    double elapsed = (now - windowStart) / 1e9;
+    if (elapsed > 0 && elapsed * 1000 >= rateWindow) {
+      rates = new TreeMap<>();
+      for (Map.Entry<String, Long> entry : counts.entrySet()) {
+        Long previous = windowCounts.get(entry.getKey());
+        rates.put(entry.getKey(),
+            (entry.getValue() - (previous == null ? 0 : previous)) / elapsed);
+      }
+      windowCounts = counts;
+      windowStart = now;
+    }
+
+    Map<String, Long> counterValues = new TreeMap<>();
+    for (Counter counter : Counter.values()) {
+      counterValues.put(counter.label, counters[counter.ordinal()].sum());
+    }
+
+    Map<String, Long> gaugeValues = new TreeMap<>();
+    for (Map.Entry<String, LongSupplier> entry : gauges.entrySet()) {
+      gaugeValues.put(entry.getKey(), entry.getValue().getAsLong());
+    }
+
+    List<LatencyStatus> stageStatus = new ArrayList<>(stages.length);
+    for (Stage stage : Stage.values()) {
+      stageStatus.add(stages[stage.ordinal()].status(stage.label));
+    }
+
+    List<LatencyStatus> commandStatus = new ArrayList<>(commands.size());
+    for (Map.Entry<String, Histogram> entry : new TreeMap<>(commands).entrySet()) {
+      commandStatus.add(entry.getValue().status(entry.getKey()));
+    }
+
+    return new MetricsStatus(counts, new TreeMap<>(rates), counterValues, gaugeValues, stageStatus,
+        commandStatus);
+  }
+
+  /**
+   * @return the metrics in the Prometheus text exposition format
+   */
+  public String getPrometheus() {
+    MetricsStatus status = getStatus();
+    StringBuilder out = new StringBuilder();
+
+    out.append("# HELP ").append(PREFIX)
+        .append("messages_total Messages received per subscription\n");
+    out.append("# TYPE ").append(PREFIX).append("messages_total counter\n");
+    for (Map.Entry<String, Long> entry : status.getMessages().entrySet()) {
+      out.append(PREFIX).append("messages_total{topic=\"").append(escape(entry.getKey()))
+          .append("\"} ").append(entry.getValue()).append('\n');
+    }
+
+    for (Map.Entry<String, Long> entry : status.getCounters().entrySet()) {
+      String name = PREFIX + entry.getKey() + "_total";
+      out.append("# TYPE ").append(name).append(" counter\n");
+      out.append(name).append(' ').append(entry.getValue()).append('\n');
+    }
+
+    for (Map.Entry<String, Long> entry : status.getGauges().entrySet()) {
+      String name = PREFIX + entry.getKey();
+      out.append("# TYPE ").append(name).append(" gauge\n");
+      out.append(name).append(' ').append(entry.getValue()).append('\n');
+    }
+
+    out.append("# HELP ").append(PREFIX).append("stage_seconds Latency of each pipeline stage\n");
+    out.append("# TYPE ").append(PREFIX).append("stage_seconds summary\n");
+    for (LatencyStatus latency : status.getStages()) {
+      appendSummary(out, PREFIX + "stage_seconds", "stage", latency);
+    }
+
+    out.append("# HELP ").append(PREFIX).append("command_seconds Command round trip per device\n");
+    out.append("# TYPE ").append(PREFIX).append("command_seconds summary\n");
+    for (LatencyStatus latency : status.getCommands()) {
+      appendSummary(out, PREFIX + "command_seconds", "device", latency);
+    }
+
+    return out.toString();
+  }
+
+  private void appendSummary(StringBuilder out, String name, String label,
+      LatencyStatus latency) {
+    String labels = label + "=\"" + escape(latency.getName()) + "\"";
+    appendQuantile(out, name, labels, "0.5", latency.getP50());
+    appendQuantile(out, name, labels, "0.9", latency.getP90());
+    appendQuantile(out, name, labels, "0.99", latency.getP99());
+    appendQuantile(out, name, labels, "0.999", latency.getP999());
+    out.append(name).append("_sum{").append(labels).append("} ")
+        .append(latency.getMean() * latency.getCount() / 1e6).append('\n');
+    out.append(name).append("_count{").append(labels).append("} ").append(latency.getCount())
+        .append('\n');
+  }
+
+  private void appendQuantile(StringBuilder out, String name, String labels, String quantile,
+      double micros) {
+    out.append(name).append('{').append(labels).append(",quantile=\"").append(quantile)
+        .append("\"} ").append(micros / 1e6).append('\n');
+  }
+
+  private String escape(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+}
@@ -0,0 +1,406 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.mqtt;
+
+import java.math.BigInteger;
+
+import org.edgexfoundry.domain.ReadingValue;
+import org.edgexfoundry.domain.meta.PropertyValue;
+
+/**
+ * The value transform of one profile property, resolved once from its PropertyValue. Decoding,
+ * masking, shifting, sign extension, base, scale and offset run on primitive longs and doubles and
+ * give the same result as ObjectTransform.transform(PropertyValue, String).
+ *
+ * The result is a ReadingValue holding the primitive, so it is only formatted as a string where
+ * one is needed.
+ *
+ * Inputs the primitive path cannot represent exactly (more than 15 hex digits, octal or signed
+ * literals, properties that do not parse) are reported by returning null, and the caller falls
+ * back to the general BigInteger implementation.
+ */
+public final class CompiledTransform {
+
+  // hex digits that always fit in a long with room for the shifts below
+  private static final int MAX_DIGITS = 15;
+
+  // used when the property cannot be compiled, every transform falls back
+  private static final CompiledTransform GENERAL = new CompiledTransform();
+
+  private final boolean supported;
+  private final boolean numeric;
+  private final boolean booleanType;
+  private final boolean floatType;
+  private final boolean decode;
+  private final boolean fastDecode;
+  private final int size;
+  private final int wordDigits;
+  private final boolean lsb;
+  private final long mask;
+  private final int shift;
+  private final boolean signed;
+  private final int signBits;
+  private final long complement;
+  private final boolean hasBase;
+  private final double base;
+  private final boolean hasScale;
+  private final double scale;
+  private final double offset;
+
+  public static CompiledTransform compile(PropertyValue value) {
+    try {
+      return new CompiledTransform(value);
+    } catch (RuntimeException e) {
+      return GENERAL;
+    }
+  }
+
+  private CompiledTransform() {
+    supported = false;
+    numeric = false;
+    booleanType = false;
+    floatType = false;
+    decode = false;
+    fastDecode = false;
+    size = 0;
+    wordDigits = 0;
+    lsb = false;
+    mask = 0;
+    shift = 0;
+    signed = false;
+    signBits = 0;
+    complement = 0;
+    hasBase = false;
+    base = 0;
+    hasScale = false;
+    scale = 1;
+    offset = 0;
+  }
+
+  private CompiledTransform(PropertyValue value) {
+    String type = value.getType().toLowerCase();
+    floatType = type.equals("f") || type.equals("float");
+    numeric = floatType || type.equals("i") || type.equals("integer");
+    booleanType = type.equals("b") || type.equals("bool") || type.equals("boolean");
+    supported = true;
+
+    if (!numeric) {
+      decode = false;
+      fastDecode = false;
+      size = 0;
+      wordDigits = 0;
+      lsb = false;
+      mask = 0;
+      shift = 0;
+      signed = false;
+      signBits = 0;
+      complement = 0;
+      hasBase = false;
+      base = 0;
+      hasScale = false;
+      scale = 1;
+      offset = 0;
+      return;
+    }
+
+    decode = value.getLSB() != null;
+    if (decode) {
+      size = value.size();
+      int word = value.word() * 2;
+      wordDigits = word > size ? size : word;
+      lsb = value.LSB();
+      BigInteger bigMask = value.mask();
+      shift = value.shift();
+      signed = value.getSigned();
+      signBits = size * 4;
+      fastDecode = size > 0 && size <= MAX_DIGITS && wordDigits > 0 && bigMask.signum() >= 0
+          && bigMask.bitLength() < 63 && shift >= 0 && shift < 63;
+      mask = fastDecode ? bigMask.longValue() : 0;
+      complement = fastDecode ? (1L << signBits) - 1 : 0;
+    } else {
+      fastDecode = false;
+      size = 0;
+      wordDigits = 0;
+      lsb = false;
+      mask = 0;
+      shift = 0;
+      signed = false;
+      signBits = 0;
+      complement = 0;
+    }
+
+    hasBase = !value.base().equals(0);
+    base = value.base();
+    scale = value.scale();
+    hasScale = scale != 1.0;
+    offset = value.offset();
+  }
+
+  /**
+   * @return the transformed value as a string, or null when the input needs the general
+   *         implementation
+   */
+  public String transform(String result, boolean transformData) {
+    ReadingValue value = transformValue(result, transformData);
+    return value == null ? null : value.toString();
+  }
+
+  /**
+   * @return the transformed value, or null when the input needs the general implementation
+   */
+  public ReadingValue transformValue(String result, boolean transformData) {
+    if (!supported) {
+      return null;
+    }
+
+    // Do not perform transforms on non-numeric fields
+    if (!numeric) {
+      if (booleanType && ("true".equals(result) || "false".equals(result))) {
+        return ReadingValue.of(result.equals("true"));
+      }
+      return ReadingValue.of(result);
+    }
+
+    double floatValue;
+
+    if (decode) {
+      if (!fastDecode) {
+        return null;
+      }
+
+      long val = decode(result);
+      if (val < 0) {
+        return null;
+      }
+
+      if (mask != 0) {
+        val &= mask;
+      }
+
+      if (shift != 0) {
+        val >>>= shift;
+      }
+
+      if (signed && 64 - Long.numberOfLeadingZeros(val) == signBits) {
+        val -= complement;
+      }
+
+      if (!transformData) {
+        return ReadingValue.of((long) (int) val);
+      }
+
+      floatValue = val;
+    } else {
+      floatValue = Float.parseFloat(result);
+    }
+
+    if (hasBase) {
+      floatValue = Math.pow(base, floatValue);
+    }
+
+    if (hasScale) {
+      floatValue = floatValue * scale;
+    }
+
+    // always added, even when zero, so that -0.0 becomes 0.0 as it always has
+    floatValue = floatValue + offset;
+
+    if (floatType) {
+      return ReadingValue.of(floatValue);
+    }
+
+    return ReadingValue.of(Math.round(floatValue));
+  }
+
+  /**
+   * Transform a batch of samples of the property. The samples are decoded into a primitive array
+   * and each step is applied to the whole array in its own loop, which the JIT can unroll and
+   * vectorize.
+   *
+   * @return the transformed values, with null for each sample that needs the general
+   *         implementation, or null if none of them can be done here
+   */
+  public ReadingValue[] transformValues(String[] results, boolean transformData) {
+    if (!supported || (decode && !fastDecode)) {
+      return null;
+    }
+
+    int count = results.length;
+    ReadingValue[] values = new ReadingValue[count];
+
+    if (!numeric) {
+      for (int i = 0; i < count; i++) {
+        values[i] = transformValue(results[i], transformData);
+      }
+      return values;
+    }
+
+    double[] floatValues = new double[count];
+    boolean[] general = null;
+
+    if (decode) {
+      long[] raw = new long[count];
+      for (int i = 0; i < count; i++) {
+        raw[i] = decode(results[i]);
+        if (raw[i] < 0) {
+          if (general == null) {
+            general = new boolean[count];
+          }
+          general[i] = true;
+        }
+      }
+
+      if (mask != 0) {
+        for (int i = 0; i < count; i++) {
+          raw[i] &= mask;
+        }
+      }
+
+      if (shift != 0) {
+        for (int i = 0; i < count; i++) {
+          raw[i] >>>= shift;
+        }
+      }
+
+      if (signed) {
+        for (int i = 0; i < count; i++) {
+          raw[i] -= 64 - Long.numberOfLeadingZeros(raw[i]) == signBits ? complement : 0;
+        }
+      }
+
+      if (!transformData) {
+        for (int i = 0; i < count; i++) {
+          if (general == null || !general[i]) {
+            values[i] = ReadingValue.of((long) (int) raw[i]);
+          }
+        }
+        return values;
+      }
+
+      for (int i = 0; i < count; i++) {
+        floatValues[i] = raw[i];
+      }
+    } else {
+      for (int i = 0; i < count; i++) {
+        floatValues[i] = Float.parseFloat(results[i]);
+      }
+    }
+
+    if (hasBase) {
+      for (int i = 0; i < count; i++) {
+        floatValues[i] = Math.pow(base, floatValues[i]);
+      }
+    }
+
+    if (hasScale) {
+      for (int i = 0; i < count; i++) {
+        floatValues[i] = floatValues[i] * scale;
+      }
+    }
+
+    for (int i = 0; i < count; i++) {
+      floatValues[i] = floatValues[i] + offset;
+    }
+
+    for (int i = 0; i < count; i++) {
+      if (general == null || !general[i]) {
+        values[i] = floatType ? ReadingValue.of(floatValues[i])
+            : ReadingValue.of(Math.round(floatValues[i]));
+      }
+    }
+
+    return values;
+  }
+
+  /**
+   * Decode a "0x" hex string, or a decimal int rendered as size hex digits, into its words in
+   * profile byte order.
+   *
+   * @return the decoded value or -1 if the input is outside the primitive path
+   */
+  private long decode(String result) {
+    long number;
+    int digits;
+
+    if (result.startsWith("0x")) {
+      digits = result.length() - 2;
+      if (digits > MAX_DIGITS) {
+        return -1;
+      }
+
+      number = 0;
+      for (int i = 2; i < result.length(); i++) {
+        int digit = Character.digit(result.charAt(i), 16);
+        if (digit < 0) {
+          return -1;
+        }
+        number = (number << 4) | digit;
+      }
+    } else {
+      int length = result.length();
+      boolean negative = length > 0 && result.charAt(0) == '-';
+      int start = negative ? 1 : 0;
+
+      // leave empty, signed, octal and out of range literals to Integer.decode
+      if (start == length || length > 11 || (result.charAt(start) == '0' && length - start > 1)) {
+        return -1;
+      }
+
+      long parsed = 0;
+      for (int i = start; i < length; i++) {
+        char c = result.charAt(i);
+        if (c < '0' || c > '9') {
+          return -1;
+        }
+        parsed = parsed * 10 + (c - '0');
+      }
+
+      if (negative) {
+        parsed = -parsed;
+      }
+
+      if (parsed < Integer.MIN_VALUE || parsed > Integer.MAX_VALUE) {
+        return -1;
+      }
+
+      // formatted as %0<size>X, so a negative int is its 8 digit two's complement
+      number = parsed & 0xFFFFFFFFL;
+      int hexDigits = number == 0 ? 1 : (67 - Long.numberOfLeadingZeros(number)) / 4;
+      digits = Math.max(size, hexDigits);
+    }
+
+    int words = digits / wordDigits;
+    long val = 0;
+
+    for (int i = 0; i < words; i++) {
+      int start = i * wordDigits;
+      int finish = start + wordDigits;
+      long thisWord = 0;
+
+      for (int j = 0; j < wordDigits / 2; j++) {
+        int index = lsb ? finish - j * 2 - 2 : start + j * 2;
+        thisWord = (thisWord << 8) + ((number >>> (4 * (digits - index - 2))) & 0xFF);
+      }
+
+      val = (val << (wordDigits * 4)) + thisWord;
+    }
+
+    return val;
+  }
+}
@@ -18,9 +18,21 @@
 
 package org.edgexfoundry.mqtt;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import org.edgexfoundry.data.DeviceStore;
 import org.edgexfoundry.data.WatcherStore;
@@ -34,6 +46,7 @@ import org.edgexfoundry.domain.meta.ProvisionWatcher;
 import org.edgexfoundry.support.logging.client.EdgeXLogger;
 import org.edgexfoundry.support.logging.client.EdgeXLoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -47,47 +60,53 @@ public class DeviceDiscovery {
   @Autowired
   private DeviceStore devices;
 
+  // number of devices provisioned together, each batch completes before the next starts
+  @Value("${discovery.batch.size:16}")
+  private int batchSize;
+
+  // parallel metadata and initialization calls within a batch
+  @Value("${discovery.threads:4}")
+  private int threads;
+
   // TODO Generate protocol dynamically
   private Protocol protocol = Protocol.TCP;
 
-  private ProvisionWatcher deviceMatches(Map<String, String> device) {
-    for (ProvisionWatcher watcher : watchers.getWatchers()) {
-      Map<String, String> identifiers = watcher.getIdentifiers();
-      boolean found = true;
-
-      for (Map.Entry<String, String> entry : identifiers.entrySet()) {
-        Pattern p = Pattern.compile(entry.getValue());
-        Matcher m = null;
-        String fieldValue = "";
-        fieldValue = device.get(entry.getKey());
-        m = p.matcher(fieldValue);
-
-        if (m == null) {
-          logger.error("Identifier field " + entry.getKey() + " was not found.");
-          break;
-        }
+  private ExecutorService executor;
 
-        if (m.matches()) {
-          found = found && true;
-        } else {
-          found = false;
-          break;
-        }
-      }
+  @PostConstruct
+  public void init() {
+    AtomicInteger count = new AtomicInteger();
+    executor = Executors.newFixedThreadPool(Math.max(threads, 1), r -> {
+      Thread thread = new Thread(r, "discovery-" + count.getAndIncrement());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
 
-      if (found) {
-        logger.debug("Matching Device " + device + " found.");
-        return watcher;
-      }
+  @PreDestroy
+  public void cleanup() {
+    executor.shutdownNow();
+  }
+
+  private ProvisionWatcher deviceMatches(Map<String, String> device) {
+    ProvisionWatcher watcher = watchers.getIndex().match(device);
+
+    if (watcher != null) {
+      logger.debug("Matching Device " + device + " found.");
     }
 
-    return null;
+    return watcher;
   }
 
-  private Device deviceExists(Map<String, String> device) {
-    return devices.getMetaDevices().stream()
-        .filter(d -> device.get("address").equals(d.getAddressable().getPath())).findFirst()
-        .orElse(null);
+  // index the devices of one metadata snapshot by their addressable path
+  private Map<String, Device> indexByAddress(List<Device> metaDevices) {
+    Map<String, Device> index = new HashMap<>();
+    for (Device device : metaDevices) {
+      if (device.getAddressable() != null && device.getAddressable().getPath() != null) {
+        index.putIfAbsent(device.getAddressable().getPath(), device);
+      }
+    }
+    return index;
   }
 
   private Device createDevice(Map<String, String> device, ProvisionWatcher watcher) {
@@ -113,28 +132,83 @@ public class DeviceDiscovery {
     return addressable;
   }
 
-  public void provision(ScanList availableList) {
-    if (availableList != null && availableList.getScan().size() > 0) {
-      for (Map<String, String> device : availableList.getScan()) {
-        Device matchingDevice = deviceExists(device);
+  /**
+   * @return the addresses of the scanned devices that could not be provisioned
+   */
+  public Set<String> provision(ScanList availableList) {
+    Set<String> failed = new HashSet<>();
+    if (availableList == null || availableList.getScan().size() == 0) {
+      return failed;
+    }
 
-        if (matchingDevice != null) {
-          if (matchingDevice.getOperatingState().equals(OperatingState.DISABLED)
-              || devices.getDevice(matchingDevice.getName()) == null) {
-            matchingDevice.setOperatingState(OperatingState.ENABLED);
-            devices.add(matchingDevice);
-          }
+    // one snapshot of metadata for the whole scan
+    Map<String, Device> existing = indexByAddress(devices.getMetaDevices());
+    Set<String> scanned = new HashSet<>();
+    List<Device> toAdd = new ArrayList<>();
+    List<String> addresses = new ArrayList<>();
+
+    for (Map<String, String> device : availableList.getScan()) {
+      String address = device.get("address");
+      if (!scanned.add(address)) {
+        // reported twice in the same scan
+        continue;
+      }
 
-          continue;
+      Device matchingDevice = existing.get(address);
+
+      if (matchingDevice != null) {
+        if (matchingDevice.getOperatingState().equals(OperatingState.DISABLED)
+            || devices.getDevice(matchingDevice.getName()) == null) {
+          matchingDevice.setOperatingState(OperatingState.ENABLED);
+          toAdd.add(matchingDevice);
+          addresses.add(address);
         }
 
-        ProvisionWatcher watcher = deviceMatches(device);
-        if (watcher != null) {
-          // Provision the device
-          Device newDevice = createDevice(device, watcher);
-          devices.add(newDevice);
+        continue;
+      }
+
+      ProvisionWatcher watcher = deviceMatches(device);
+      if (watcher != null) {
+        // Provision the device
+        toAdd.add(createDevice(device, watcher));
+        addresses.add(address);
+      }
+    }
+
+    logger.debug("Discovery found " + availableList.getScan().size() + " devices, "
+        + toAdd.size() + " to provision");
+
+    int size = Math.max(batchSize, 1);
+    for (int start = 0; start < toAdd.size(); start += size) {
+      int end = Math.min(start + size, toAdd.size());
+      provisionBatch(toAdd.subList(start, end), addresses.subList(start, end), failed);
+    }
+    return failed;
+  }
+
+  private void provisionBatch(List<Device> batch, List<String> addresses, Set<String> failed) {
+    List<Callable<Boolean>> tasks = new ArrayList<>(batch.size());
+    for (Device device : batch) {
+      tasks.add(() -> devices.add(device));
+    }
+
+    try {
+      List<Future<Boolean>> results = executor.invokeAll(tasks);
+      for (int i = 0; i < results.size(); i++) {
+        try {
+          if (!results.get(i).get()) {
+            failed.add(addresses.get(i));
+          }
+        } catch (ExecutionException e) {
+          logger.error("Problem provisioning device " + batch.get(i).getName() + ": "
+              + e.getCause().getMessage());
+          failed.add(addresses.get(i));
         }
       }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      logger.error("Device provisioning interrupted");
+      failed.addAll(addresses);
     }
   }
 }
@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.mqtt;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.edgexfoundry.domain.ScanList;
+import org.edgexfoundry.handler.MqttHandler;
+import org.edgexfoundry.metrics.MetricsRegistry;
+import org.edgexfoundry.support.logging.client.EdgeXLogger;
+import org.edgexfoundry.support.logging.client.EdgeXLoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Collects device identities announced over MQTT into the scan list returned by discovery. Only
+ * devices that are new, have changed, or have not been provisioned within the resend interval are
+ * queued, and the queue is handed to provisioning in one scan per flush interval, so a burst of
+ * announcements costs one incremental scan rather than one full scan each.
+ */
+@Component
+public class DiscoveryAggregator {
+
+  private static final EdgeXLogger logger =
+      EdgeXLoggerFactory.getEdgeXLogger(DiscoveryAggregator.class);
+
+  // milliseconds between scans of the queued announcements
+  @Value("${discovery.flush.interval:5000}")
+  private long flushInterval;
+
+  // milliseconds before an unchanged announcement is passed on again
+  @Value("${discovery.announce.resend:600000}")
+  private long resendInterval;
+
+  @Autowired
+  private MqttHandler handler;
+
+  @Autowired
+  private MetricsRegistry metrics;
+
+  // address to the identity last provisioned and when
+  private final Map<String, Announcement> known = new ConcurrentHashMap<>();
+
+  // address to identities waiting for the next scan
+  private final Map<String, Map<String, String>> pending = new ConcurrentHashMap<>();
+
+  private ScheduledExecutorService executor;
+
+  @PostConstruct
+  public void init() {
+    executor = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "discovery-flush");
+      thread.setDaemon(true);
+      return thread;
+    });
+    long interval = Math.max(flushInterval, 1);
+    executor.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+    metrics.gauge("discovery_pending", this::getPendingCount);
+  }
+
+  @PreDestroy
+  public void cleanup() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * @return true if the identity was queued for the next scan
+   */
+  public boolean announce(Map<String, String> identity) {
+    String address = identity.get("address");
+    if (address == null) {
+      return false;
+    }
+
+    long now = System.currentTimeMillis();
+    Announcement last = known.get(address);
+    if (last != null && last.identity.equals(identity) && now - last.time < resendInterval) {
+      return false;
+    }
+
+    return !identity.equals(pending.put(address, identity));
+  }
+
+  /**
+   * Remember the identities of a drained scan that were provisioned, so unchanged announcements of
+   * them are not passed on again within the resend interval. Failed ones are passed on the next
+   * time they are announced.
+   */
+  public void provisioned(ScanList scan, Set<String> failed) {
+    if (scan == null) {
+      return;
+    }
+
+    long now = System.currentTimeMillis();
+    for (Map<String, String> identity : scan.getScan()) {
+      String address = identity.get("address");
+      if (address != null && !failed.contains(address)) {
+        known.put(address, new Announcement(identity, now));
+      }
+    }
+  }
+
+  /**
+   * @return the identities announced since the last call
+   */
+  public ScanList drain() {
+    ScanList scan = new ScanList();
+    for (String address : pending.keySet()) {
+      Map<String, String> identity = pending.remove(address);
+      if (identity != null) {
+        scan.add(identity);
+      }
+    }
+    return scan;
+  }
+
+  public int getKnownCount() {
+    return known.size();
+  }
+
+  public int getPendingCount() {
+    return pending.size();
+  }
+
+  private void flush() {
+    // forget devices not provisioned within the resend interval, they are passed on regardless
+    long now = System.currentTimeMillis();
+    known.values().removeIf(announcement -> now - announcement.time >= resendInterval);
+
+    if (pending.isEmpty()) {
+      return;
+    }
+
+    try {
+      logger.debug("Scanning " + pending.size() + " announced devices");
+      handler.scan();
+    } catch (Exception e) {
+      logger.error("Problem provisioning announced devices: " + e.getMessage());
+    }
+  }
+
+  private static class Announcement {
+    private final Map<String, String> identity;
+    private final long time;
+
+    Announcement(Map<String, String> identity, long time) {
+      this.identity = identity;
+      this.time = time;
+    }
+  }
+}
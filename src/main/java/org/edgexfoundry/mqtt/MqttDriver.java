@@ -25,6 +25,7 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -54,6 +55,8 @@ import org.edgexfoundry.domain.meta.Protocol;
 import org.edgexfoundry.domain.meta.ResourceOperation;
 import org.edgexfoundry.exception.controller.ServiceException;
 import org.edgexfoundry.handler.MqttHandler;
+import org.edgexfoundry.metrics.MetricsRegistry;
+import org.edgexfoundry.metrics.MetricsRegistry.Counter;
 import org.edgexfoundry.mqtt.messaging.CommandResponseMessageProcessor;
 import org.edgexfoundry.mqtt.messaging.OutgoingSender;
 import org.edgexfoundry.support.logging.client.EdgeXLogger;
@@ -154,6 +157,12 @@ public class MqttDriver {
   @Autowired
   private CommandResponseMessageProcessor responseProcessor;
 
+  @Autowired
+  private DiscoveryAggregator announcements;
+
+  @Autowired
+  private MetricsRegistry metrics;
+
   @PreDestroy
   private void sendorCleanUp() {
     for (String deviceName : sendors.keySet()) {
@@ -162,10 +171,12 @@ public class MqttDriver {
   }
 
   public ScanList discover() {
-    // no scanning at this time. Static incoming topic is watched and no
-    // others at this time.
-    ScanList scan = new ScanList();
-    return scan;
+    // devices announced on the discovery topic since the last scan
+    return announcements.drain();
+  }
+
+  public void provisioned(ScanList scan, Set<String> failed) {
+    announcements.provisioned(scan, failed);
   }
 
   public void process(ResourceOperation operation, Device device, MqttObject object, String value,
@@ -186,35 +197,37 @@ public class MqttDriver {
     }
   }
 
-  public void processJson(String json, String transactionId, String opId) {
-    if (json != null && json.length() > 0) {
-      logger.debug("Mqtt data message rec'd:  " + json);
-      JsonObject jsonObject = parser.parse(json).getAsJsonObject();
-      String deviceName = getDeviceName(jsonObject);
-      if (deviceName != null) {
-        Device d = devices.getDevice(deviceName);
-        List<ResourceOperation> ops = processValues(d, jsonObject);
-        handler.completeTransaction(transactionId, opId, objectCache.getResponses(d, ops.get(0)));
-        handler.executeCommandGet(transactionId, deviceName);
-      } else {
-        logger.info("No device with matching name/alias "
-            + "managed by this service.  Mqtt message ignored.");
-      }
+  public void processJson(JsonObject jsonObject, String transactionId, String opId) {
+    String deviceName = getDeviceName(jsonObject);
+    if (deviceName != null) {
+      Device d = devices.getDevice(deviceName);
+      List<ResourceOperation> ops = processValues(d, jsonObject);
+      // no readings when every value was held back by its report filter
+      handler.completeTransaction(transactionId, opId,
+          ops.isEmpty() ? new ArrayList<>() : objectCache.getResponses(d, ops.get(0)));
+      handler.executeCommandGet(transactionId, deviceName);
+    } else {
+      logger.info("No device with matching name/alias "
+          + "managed by this service.  Mqtt message ignored.");
     }
   }
-  
+
 
   public String processCommand(String deviceName, String operation, Addressable addressable,
       MqttAttribute attribute, String value) {
     final String uuid;
+    long start = System.nanoTime();
     if (GET_OP.equals(operation)) {
       uuid = sendCommand(deviceName, addressable, attribute, operation);
     } else {
       uuid = sendCommand(deviceName, addressable, attribute, operation, value);
     }
     try {
-      return receive(uuid, attribute);
+      String result = receive(uuid, attribute);
+      metrics.recordCommand(deviceName, start);
+      return result;
     } catch (InterruptedException | ExecutionException e) {
+      metrics.increment(Counter.COMMANDS_FAILED);
       logger.error("Problem in response handling:  " + e.getMessage());
       e.printStackTrace();
       throw new ServiceException(new Exception("Problem handling response" + e.getMessage()));
@@ -259,7 +272,9 @@ public class MqttDriver {
     String json = result.get();
 
     if (json != null && json.length() > 0) {
-      logger.debug("Response data message rec'd:  " + json);
+      if (logger.isDebugEnabled()) {
+        logger.debug("Response data message rec'd:  " + json);
+      }
       JsonObject jsonObject = parser.parse(json).getAsJsonObject();
       JsonElement element = jsonObject.get(attribute.getName());
       if (element != null) {
@@ -279,7 +294,8 @@ public class MqttDriver {
     List<ResourceOperation> returnOps = new ArrayList<>();
     Map<String, Map<String, List<ResourceOperation>>> resources =
         profiles.getCommands().get(d.getName());
-    json.entrySet().stream().parallel().forEach(entry -> {
+    // values are applied in order on the calling ingest lane
+    json.entrySet().stream().forEach(entry -> {
       String dataKey = entry.getKey().toLowerCase();
       if (!dataKey.equals(IDENTIFIER_KEY)) {
         Map<String, List<ResourceOperation>> resource = resources.get(dataKey);
@@ -288,9 +304,10 @@ public class MqttDriver {
               + " for: " + d.getName());
         } else {
           List<ResourceOperation> ops = resource.get("get");
-          returnOps.addAll(ops);
           ResourceOperation op = ops.get(0);
-          objectCache.put(d, op, entry.getValue().getAsString());
+          if (objectCache.put(d, op, entry.getValue())) {
+            returnOps.addAll(ops);
+          }
         }
       }
     });
@@ -403,10 +420,12 @@ public class MqttDriver {
     } else {
       msg = new CmdMsg(attribute.getName(), operation);
     }
-    if (sendor.sendMessage(gson.toJson(msg).getBytes())) {
-      logger.info(
-          operation + " request for " + attribute.getName() + " sent to: " + addressable.getName());
-      logger.debug("Outgoing message:  " + gson.toJson(msg));
+    String json = gson.toJson(msg);
+    if (sendor.sendMessage(json.getBytes())) {
+      if (logger.isDebugEnabled()) {
+        logger.debug(operation + " request for " + attribute.getName() + " sent to: "
+            + addressable.getName() + ":  " + json);
+      }
       return msg.getUuid();
     } else {
       String errorMsg = "Problem sending command for attribute (" + attribute.getName()
@@ -21,6 +21,8 @@ package org.edgexfoundry.mqtt;
 import java.math.BigInteger;
 
 import org.edgexfoundry.data.ObjectStore;
+import org.edgexfoundry.domain.MqttObject;
+import org.edgexfoundry.domain.ReadingValue;
 import org.edgexfoundry.domain.meta.PropertyValue;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -56,6 +58,48 @@ public class ObjectTransform {
     }
   }
 
+  public String transform(MqttObject object, String result) {
+    return transformValue(object, result).toString();
+  }
+
+  // Use the transform compiled with the object, falling back for inputs it cannot represent
+  public ReadingValue transformValue(MqttObject object, String result) {
+    CompiledTransform compiled = object.getTransform();
+    Boolean transformData = objectCache.getTransformData();
+
+    if (compiled != null && transformData != null) {
+      ReadingValue value = compiled.transformValue(result, transformData);
+      if (value != null) {
+        return value;
+      }
+    }
+
+    return ReadingValue.parse(transform(object.getProperties().getValue(), result));
+  }
+
+  // Transform a batch of samples of the object, falling back per sample like transformValue
+  public ReadingValue[] transformValues(MqttObject object, String[] results) {
+    CompiledTransform compiled = object.getTransform();
+    Boolean transformData = objectCache.getTransformData();
+    ReadingValue[] values = null;
+
+    if (compiled != null && transformData != null) {
+      values = compiled.transformValues(results, transformData);
+    }
+
+    if (values == null) {
+      values = new ReadingValue[results.length];
+    }
+
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] == null) {
+        values[i] = ReadingValue.parse(transform(object.getProperties().getValue(), results[i]));
+      }
+    }
+
+    return values;
+  }
+
   public String transform(PropertyValue value, String result) {
     double floatValue;
 
@@ -28,6 +28,8 @@ import org.eclipse.paho.client.mqttv3.MqttClient;
 import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
 import org.eclipse.paho.client.mqttv3.MqttException;
 import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.eclipse.paho.client.mqttv3.persist.MqttDefaultFilePersistence;
+import org.edgexfoundry.domain.ConnectionStatus;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -56,6 +58,25 @@ public class CommandResponseListener implements MqttCallback {
   private String cmdrespMqttPassword;
   @Value("${RESPONSE_MQTT_KEEP_ALIVE}")
   private int cmdrespMqttKeepAlive;
+  // false keeps the broker session (and queued QoS 1/2 messages) across reconnects
+  @Value("${RESPONSE_MQTT_CLEAN_SESSION:true}")
+  private boolean cmdrespMqttCleanSession;
+  // directory for in-flight message persistence, blank for the Paho default
+  @Value("${RESPONSE_MQTT_PERSISTENCE_DIR:}")
+  private String cmdrespMqttPersistenceDir;
+  @Value("${MQTT_RECONNECT_INITIAL_DELAY:1000}")
+  private long reconnectInitialDelay;
+  @Value("${MQTT_RECONNECT_MAX_DELAY:60000}")
+  private long reconnectMaxDelay;
+  // log the payload of one in this many messages at debug, 0 for none
+  @Value("${logging.payload.sample:1000}")
+  private int payloadSample;
+  // and no more than this many payloads a second
+  @Value("${logging.payload.rate:1}")
+  private int payloadRate;
+
+  private MqttReconnector reconnector;
+  private LogSampler payloads;
 
   @Autowired
   CommandResponseMessageProcessor processor;
@@ -68,7 +89,13 @@ public class CommandResponseListener implements MqttCallback {
    */
   @PostConstruct
   public void init() throws ClassNotFoundException {
-    startListening();
+    payloads = new LogSampler(payloadSample, payloadRate);
+    reconnector = new MqttReconnector("response-listener", this::startListening,
+        reconnectInitialDelay, reconnectMaxDelay);
+    // command responses are not critical at start up, keep trying in the background
+    if (!startListening()) {
+      reconnector.connectionLost();
+    }
   }
 
   /**
@@ -79,8 +106,11 @@ public class CommandResponseListener implements MqttCallback {
    */
   @PreDestroy
   public void cleanup() throws MqttException {
-    client.disconnect();
-    client.close();
+    reconnector.shutdown();
+    if (client != null) {
+      client.disconnect();
+      client.close();
+    }
   }
 
   /*
@@ -92,13 +122,12 @@ public class CommandResponseListener implements MqttCallback {
   public void connectionLost(Throwable cause) {
     logger.error("Response subscription connection lost:" + cause.getLocalizedMessage());
     // cause.printStackTrace();
-    try {
-      client.close();
-    } catch (MqttException e) {
-      logger.error("Unable to close the client.");
-      e.printStackTrace();
-    }
-    startListening();
+    // reconnect off the Paho callback thread, retrying until the broker is back
+    reconnector.connectionLost();
+  }
+
+  public ConnectionStatus getConnectionStatus() {
+    return reconnector.getStatus();
   }
 
   /*
@@ -121,32 +150,57 @@ public class CommandResponseListener implements MqttCallback {
    */
   @Override
   public void messageArrived(String topic, MqttMessage message) throws Exception {
-    logger.debug("Response message arrived:  " + new String(message.getPayload()));
+    if (logger.isDebugEnabled() && payloads.sample()) {
+      logger.debug(payloads.format("Response message arrived:  ", message.getPayload()));
+    }
     if (cmdrespMqttTopic.equals(topic)) {
       processor.process(message.getPayload());
     }
   }
 
-  private void startListening() {
+  private boolean startListening() {
     logger.debug("Starting listening for response traffic");
     try {
       String url =
           cmdrespMqttBrokerProtocol + "://" + cmdrespMqttBroker + ":" + cmdrespMqttBrokerPort;
-      client = new MqttClient(url, cmdrespMqttClientId);
+      closeClient();
+
+      if (cmdrespMqttPersistenceDir == null || cmdrespMqttPersistenceDir.isEmpty()) {
+        client = new MqttClient(url, cmdrespMqttClientId);
+      } else {
+        client = new MqttClient(url, cmdrespMqttClientId,
+            new MqttDefaultFilePersistence(cmdrespMqttPersistenceDir));
+      }
       MqttConnectOptions connOpts = new MqttConnectOptions();
       connOpts.setUserName(cmdrespMqttUser);
       connOpts.setPassword(cmdrespMqttPassword.toCharArray());
-      connOpts.setCleanSession(true);
+      connOpts.setCleanSession(cmdrespMqttCleanSession);
       connOpts.setKeepAliveInterval(cmdrespMqttKeepAlive);
+      // set before connecting so messages queued in a persistent session are not missed
+      client.setCallback(this);
       logger.debug("Connecting to response message broker:  " + cmdrespMqttBroker);
       client.connect(connOpts);
       logger.debug("Connected to response message broker");
-      client.setCallback(this);
       client.subscribe(cmdrespMqttTopic, cmdrespMqttQos);
+      reconnector.connected();
+      return true;
     } catch (MqttException e) {
       logger.error("Unable to connect to response message queue.  "
           + "Unable to respond to command requests.");
       e.printStackTrace();
+      // release the persistence store so the next attempt can open it again
+      closeClient();
+      return false;
+    }
+  }
+
+  private void closeClient() {
+    if (client != null) {
+      try {
+        client.close();
+      } catch (MqttException e) {
+        logger.error("Unable to close the client.");
+      }
       client = null;
     }
   }
@@ -53,7 +53,9 @@ public class CommandResponseMessageProcessor {
       String uuid = extractCommandData(jsonObject, UUID_KEY);
       if (uuid != null) {
         responses.put(uuid, json);
-        logger.debug("Response message for uuid: " + uuid + " stored for processing: " + json);
+        if (logger.isDebugEnabled()) {
+          logger.debug("Response message for uuid: " + uuid + " stored for processing: " + json);
+        }
       } else {
         logger.error("No UUID found in the message.  Response message ignored.");
       }
@@ -62,12 +64,16 @@ public class CommandResponseMessageProcessor {
 
   public String getResponse(String uuid) {
     addResponse(uuid);
-    logger.debug("Response registered for uuid: " + uuid);
+    if (logger.isDebugEnabled()) {
+      logger.debug("Response registered for uuid: " + uuid);
+    }
     try {
       while (NO_RESP.equals(responses.get(uuid))) {
         Thread.sleep(SLEEP_TIME);
       }
-      logger.info("Matching response received for uuid:  " + uuid);
+      if (logger.isDebugEnabled()) {
+        logger.debug("Matching response received for uuid:  " + uuid);
+      }
       String response = responses.get(uuid);
       responses.remove(uuid);
       return response;
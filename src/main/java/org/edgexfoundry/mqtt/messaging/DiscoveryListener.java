@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.mqtt.messaging;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.log4j.Logger;
+import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
+import org.eclipse.paho.client.mqttv3.MqttCallback;
+import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.edgexfoundry.domain.ConnectionStatus;
+import org.edgexfoundry.mqtt.DiscoveryAggregator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+/**
+ * Subscribes to device announcements on the incoming broker. Each announcement is a JSON object
+ * whose fields (name, address, interface, ...) are matched against the provision watchers. The
+ * topic may be a filter such as devices/+/announce so that retained announcements of devices that
+ * are already online arrive as soon as the subscription is made. Announcements without an address
+ * use their topic as the address. Disabled when DISCOVERY_MQTT_TOPIC is blank.
+ */
+@Component
+public class DiscoveryListener implements MqttCallback {
+
+  private static final Logger logger = Logger.getLogger(DiscoveryListener.class);
+  private MqttClient client;
+
+  @Value("${INCOMING_MQTT_BROKER_PROTO}")
+  private String incomingMqttBrokerProtocol;
+  @Value("${INCOMING_MQTT_BROKER}")
+  private String incomingMqttBroker;
+  @Value("${INCOMING_MQTT_BROKER_PORT}")
+  private String incomingMqttBrokerPort;
+  @Value("${INCOMING_MQTT_USER}")
+  private String incomingMqttUser;
+  @Value("${INCOMING_MQTT_PASS}")
+  private String incomingMqttPassword;
+  @Value("${INCOMING_MQTT_KEEP_ALIVE}")
+  private int incomingMqttKeepAlive;
+  @Value("${DISCOVERY_MQTT_CLIENT_ID:DiscoverySubscriber}")
+  private String discoveryMqttClientId;
+  @Value("${DISCOVERY_MQTT_TOPIC:}")
+  private String discoveryMqttTopic;
+  @Value("${DISCOVERY_MQTT_QOS:0}")
+  private int discoveryMqttQos;
+  @Value("${MQTT_RECONNECT_INITIAL_DELAY:1000}")
+  private long reconnectInitialDelay;
+  @Value("${MQTT_RECONNECT_MAX_DELAY:60000}")
+  private long reconnectMaxDelay;
+
+  private MqttReconnector reconnector;
+
+  @Autowired
+  private DiscoveryAggregator announcements;
+
+  private JsonParser parser = new JsonParser();
+
+  @PostConstruct
+  public void init() {
+    if (!isEnabled()) {
+      logger.info("No discovery topic configured, device announcements are not watched");
+      return;
+    }
+
+    reconnector = new MqttReconnector("discovery-listener", this::startListening,
+        reconnectInitialDelay, reconnectMaxDelay);
+    if (!startListening()) {
+      reconnector.connectionLost();
+    }
+  }
+
+  @PreDestroy
+  public void cleanup() throws MqttException {
+    if (reconnector != null) {
+      reconnector.shutdown();
+    }
+    if (client != null) {
+      client.disconnect();
+      client.close();
+    }
+  }
+
+  public boolean isEnabled() {
+    return discoveryMqttTopic != null && !discoveryMqttTopic.isEmpty();
+  }
+
+  @Override
+  public void connectionLost(Throwable cause) {
+    logger.error("Discovery subscription connection lost:" + cause.getLocalizedMessage());
+    reconnector.connectionLost();
+  }
+
+  public ConnectionStatus getConnectionStatus() {
+    return reconnector == null ? null : reconnector.getStatus();
+  }
+
+  @Override
+  public void deliveryComplete(IMqttDeliveryToken token) {
+    logger.error("Discovery message delivery complete.");
+  }
+
+  @Override
+  public void messageArrived(String topic, MqttMessage message) {
+    byte[] payload = message.getPayload();
+    // an empty retained message clears an announcement, nothing to provision
+    if (payload == null || payload.length == 0) {
+      return;
+    }
+
+    JsonObject jsonObject;
+    try {
+      jsonObject = parser.parse(new String(payload)).getAsJsonObject();
+    } catch (JsonParseException | IllegalStateException e) {
+      logger.error("Announcement on " + topic + " is not a JSON object.  Mqtt message ignored.");
+      return;
+    }
+
+    Map<String, String> identity = new HashMap<>();
+    for (Map.Entry<String, JsonElement> entry : jsonObject.entrySet()) {
+      if (entry.getValue().isJsonPrimitive()) {
+        identity.put(entry.getKey(), entry.getValue().getAsString());
+      }
+    }
+    identity.putIfAbsent("address", topic);
+
+    if (announcements.announce(identity) && logger.isDebugEnabled()) {
+      logger.debug("Device announced on " + topic + ": " + identity);
+    }
+  }
+
+  private boolean startListening() {
+    logger.debug("Starting listening for device announcements");
+    try {
+      String url =
+          incomingMqttBrokerProtocol + "://" + incomingMqttBroker + ":" + incomingMqttBrokerPort;
+      closeClient();
+
+      client = new MqttClient(url, discoveryMqttClientId);
+      MqttConnectOptions connOpts = new MqttConnectOptions();
+      connOpts.setUserName(incomingMqttUser);
+      connOpts.setPassword(incomingMqttPassword.toCharArray());
+      // a clean session gets every retained announcement again after a reconnect
+      connOpts.setCleanSession(true);
+      connOpts.setKeepAliveInterval(incomingMqttKeepAlive);
+      client.setCallback(this);
+      client.connect(connOpts);
+      client.subscribe(discoveryMqttTopic, discoveryMqttQos);
+      logger.info("Watching device announcements on " + discoveryMqttTopic);
+      reconnector.connected();
+      return true;
+    } catch (MqttException e) {
+      logger.error("Unable to connect to discovery message queue.");
+      closeClient();
+      return false;
+    }
+  }
+
+  private void closeClient() {
+    if (client != null) {
+      try {
+        client.close();
+      } catch (MqttException e) {
+        logger.error("Unable to close the client.");
+      }
+      client = null;
+    }
+  }
+}
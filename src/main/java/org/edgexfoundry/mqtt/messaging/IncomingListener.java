@@ -28,7 +28,10 @@ import org.eclipse.paho.client.mqttv3.MqttClient;
 import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
 import org.eclipse.paho.client.mqttv3.MqttException;
 import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.eclipse.paho.client.mqttv3.persist.MqttDefaultFilePersistence;
 import org.edgexfoundry.Application;
+import org.edgexfoundry.domain.ConnectionStatus;
+import org.edgexfoundry.metrics.MetricsRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -57,10 +60,32 @@ public class IncomingListener implements MqttCallback {
   private String incomingMqttPassword;
   @Value("${INCOMING_MQTT_KEEP_ALIVE}")
   private int incomingMqttKeepAlive;
+  // false keeps the broker session (and queued QoS 1/2 messages) across reconnects
+  @Value("${INCOMING_MQTT_CLEAN_SESSION:true}")
+  private boolean incomingMqttCleanSession;
+  // directory for in-flight message persistence, blank for the Paho default
+  @Value("${INCOMING_MQTT_PERSISTENCE_DIR:}")
+  private String incomingMqttPersistenceDir;
+  @Value("${MQTT_RECONNECT_INITIAL_DELAY:1000}")
+  private long reconnectInitialDelay;
+  @Value("${MQTT_RECONNECT_MAX_DELAY:60000}")
+  private long reconnectMaxDelay;
+  // log the payload of one in this many messages at debug, 0 for none
+  @Value("${logging.payload.sample:1000}")
+  private int payloadSample;
+  // and no more than this many payloads a second
+  @Value("${logging.payload.rate:1}")
+  private int payloadRate;
+
+  private MqttReconnector reconnector;
+  private LogSampler payloads;
 
   @Autowired
   private MessageProcessor processor;
 
+  @Autowired
+  private MetricsRegistry metrics;
+
   /**
    * Called after Spring creates the listener. It starts the listening for Mqtt messages off the
    * topic.
@@ -69,6 +94,9 @@ public class IncomingListener implements MqttCallback {
    */
   @PostConstruct
   public void init() throws ClassNotFoundException {
+    payloads = new LogSampler(payloadSample, payloadRate);
+    reconnector = new MqttReconnector("incoming-listener", this::startListening,
+        reconnectInitialDelay, reconnectMaxDelay);
     startListening();
     // if incoming message queue client is not available, shut the service
     // down (no messages will ever hit the service under the circumstances)
@@ -85,8 +113,11 @@ public class IncomingListener implements MqttCallback {
    */
   @PreDestroy
   public void cleanup() throws MqttException {
-    client.disconnect();
-    client.close();
+    reconnector.shutdown();
+    if (client != null) {
+      client.disconnect();
+      client.close();
+    }
   }
 
   /*
@@ -98,13 +129,12 @@ public class IncomingListener implements MqttCallback {
   public void connectionLost(Throwable cause) {
     logger.error("Incoming subscription connection lost:" + cause.getLocalizedMessage());
     // cause.printStackTrace();
-    try {
-      client.close();
-    } catch (MqttException e) {
-      logger.error("Unable to close the client.");
-      e.printStackTrace();
-    }
-    startListening();
+    // reconnect off the Paho callback thread, retrying until the broker is back
+    reconnector.connectionLost();
+  }
+
+  public ConnectionStatus getConnectionStatus() {
+    return reconnector.getStatus();
   }
 
   /*
@@ -127,31 +157,58 @@ public class IncomingListener implements MqttCallback {
    */
   @Override
   public void messageArrived(String topic, MqttMessage message) {
-    logger.info("Incoming message arrived:  " + new String(message.getPayload()));
+    long arrival = System.nanoTime();
+    metrics.messageReceived(incomingMqttTopic);
+    if (logger.isDebugEnabled() && payloads.sample()) {
+      logger.debug(payloads.format("Incoming message arrived:  ", message.getPayload()));
+    }
     if (incomingMqttTopic.equals(topic)) {
-      processor.process(message.getPayload());
+      processor.process(message.getPayload(), arrival);
     }
   }
 
-  private void startListening() {
+  private boolean startListening() {
     logger.debug("Starting listening for incoming traffic");
     try {
       String url =
           incomingMqttBrokerProtocol + "://" + incomingMqttBroker + ":" + incomingMqttBrokerPort;
-      client = new MqttClient(url, incomingMqttClientId);
+      closeClient();
+
+      if (incomingMqttPersistenceDir == null || incomingMqttPersistenceDir.isEmpty()) {
+        client = new MqttClient(url, incomingMqttClientId);
+      } else {
+        client = new MqttClient(url, incomingMqttClientId,
+            new MqttDefaultFilePersistence(incomingMqttPersistenceDir));
+      }
       MqttConnectOptions connOpts = new MqttConnectOptions();
       connOpts.setUserName(incomingMqttUser);
       connOpts.setPassword(incomingMqttPassword.toCharArray());
-      connOpts.setCleanSession(true);
+      connOpts.setCleanSession(incomingMqttCleanSession);
       connOpts.setKeepAliveInterval(incomingMqttKeepAlive);
+      // set before connecting so messages queued in a persistent session are not missed
+      client.setCallback(this);
       logger.debug("Connecting to incoming message broker:  " + incomingMqttBroker);
       client.connect(connOpts);
       logger.debug("Connected to incoming message broker");
-      client.setCallback(this);
       client.subscribe(incomingMqttTopic, incomingMqttQos);
+      reconnector.connected();
+      return true;
     } catch (MqttException e) {
       logger.error("Unable to connect to incoming message queue.");
       e.printStackTrace();
+      // release the persistence store so the next attempt can open it again
+      closeClient();
+      return false;
+    }
+  }
+
+  private void closeClient() {
+    if (client != null) {
+      try {
+        client.close();
+      } catch (MqttException e) {
+        logger.error("Unable to close the client.");
+      }
       client = null;
     }
   }
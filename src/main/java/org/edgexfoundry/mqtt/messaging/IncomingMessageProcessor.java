@@ -18,22 +18,79 @@
 
 package org.edgexfoundry.mqtt.messaging;
 
+import org.apache.log4j.Logger;
 import org.edgexfoundry.handler.MqttHandler;
+import org.edgexfoundry.metrics.MetricsRegistry;
+import org.edgexfoundry.metrics.MetricsRegistry.Stage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
 @Component
 public class IncomingMessageProcessor implements MessageProcessor {
 
+  private static final Logger logger = Logger.getLogger(IncomingMessageProcessor.class);
+  private static final String IDENTIFIER_KEY = "name";
+
   @Autowired
   MqttHandler handler;
 
+  @Autowired
+  IngestScheduler scheduler;
+
+  @Autowired
+  MetricsRegistry metrics;
+
+  @Autowired
+  IngestLimiter limiter;
+
+  private JsonParser parser = new JsonParser();
+
   @Override
   public void process(byte[] messagePayload) {
+    process(messagePayload, System.nanoTime());
+  }
+
+  @Override
+  public void process(byte[] messagePayload, long arrival) {
 
     String json = new String(messagePayload);
     if (json != null && json.length() > 0) {
-      handler.processJson(json);
+      JsonObject jsonObject;
+      try {
+        jsonObject = parser.parse(json).getAsJsonObject();
+      } catch (JsonParseException | IllegalStateException e) {
+        logger.error("Incoming message is not a JSON object.  Mqtt message ignored.");
+        return;
+      }
+
+      metrics.record(Stage.PARSE, arrival);
+
+      String deviceName = getDeviceName(jsonObject);
+      if (!limiter.admit(deviceName)) {
+        return;
+      }
+
+      // keep each device on its own lane so its readings are handled in order
+      long queued = System.nanoTime();
+      scheduler.submit(deviceName, () -> {
+        metrics.record(Stage.QUEUE, queued);
+        handler.processJson(jsonObject);
+        metrics.record(Stage.END_TO_END, arrival);
+      });
+    }
+  }
+
+  private String getDeviceName(JsonObject jsonObject) {
+    JsonElement element = jsonObject.get(IDENTIFIER_KEY);
+    if (element != null && element.isJsonPrimitive()) {
+      return element.getAsString();
+    } else {
+      return null;
     }
   }
 }
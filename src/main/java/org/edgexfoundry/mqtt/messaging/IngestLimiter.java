@@ -0,0 +1,210 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.mqtt.messaging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PostConstruct;
+
+import org.edgexfoundry.data.DeviceStore;
+import org.edgexfoundry.domain.ThrottleStatus;
+import org.edgexfoundry.domain.meta.Device;
+import org.edgexfoundry.metrics.MetricsRegistry;
+import org.edgexfoundry.metrics.MetricsRegistry.Counter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Admission control for incoming device messages. Each managed device has a token bucket, sized
+ * by the limits of its profile, and a message that finds the bucket empty is dropped or, under the
+ * sample policy, let through once in so many times. A device flooding the data topic then only
+ * costs the parse of its messages, instead of filling its ingest lane and holding back the
+ * callback thread every device shares.
+ *
+ * A profile's limits are read from ingest.rate.limit.[profile name] and
+ * ingest.rate.burst.[profile name], falling back to ingest.rate.limit and ingest.rate.burst, once
+ * per profile. Devices of a profile without a limit have no bucket and cost one lookup.
+ */
+@Component
+public class IngestLimiter {
+
+  private static final String LIMIT = "ingest.rate.limit";
+  private static final String BURST = "ingest.rate.burst";
+  private static final String SAMPLE_POLICY = "sample";
+
+  // messages a second for each device, 0 for no limit
+  @Value("${ingest.rate.limit:0}")
+  private double rateLimit;
+
+  // messages a device may send at once after a quiet period, 0 for one second's worth
+  @Value("${ingest.rate.burst:0}")
+  private double rateBurst;
+
+  // drop, or sample to let one in ingest.rate.sample of the throttled messages through
+  @Value("${ingest.rate.policy:drop}")
+  private String policy;
+
+  @Value("${ingest.rate.sample:10}")
+  private int sampleEvery;
+
+  @Autowired
+  private DeviceStore devices;
+
+  @Autowired
+  private MetricsRegistry metrics;
+
+  @Autowired
+  private Environment environment;
+
+  // device name to its bucket, rebuilt when the device moves to another profile
+  private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+  // profile name to its limit and burst, "" for devices without a profile
+  private final Map<String, double[]> limits = new ConcurrentHashMap<>();
+
+  @PostConstruct
+  public void init() {
+    devices.addRemovalListener(device -> removeDevice(device.getName()));
+  }
+
+  /**
+   * @return true if the message of the device should be processed
+   */
+  public boolean admit(String deviceName) {
+    if (deviceName == null) {
+      return true;
+    }
+
+    Device device = devices.getDevice(deviceName);
+    if (device == null) {
+      // not managed, the message is ignored further on
+      buckets.remove(deviceName);
+      return true;
+    }
+
+    String profile = device.getProfile() == null ? null : device.getProfile().getName();
+    String key = profile == null ? "" : profile;
+    double[] rates = limits.get(key);
+    if (rates == null) {
+      rates = limits.computeIfAbsent(key, name -> new double[] {limit(LIMIT, profile, rateLimit),
+          limit(BURST, profile, rateBurst)});
+    }
+    if (rates[0] <= 0) {
+      // not limited, nothing to count; a bucket from a limited profile is dropped
+      if (!buckets.isEmpty()) {
+        buckets.remove(deviceName);
+      }
+      return true;
+    }
+
+    Bucket bucket = buckets.get(deviceName);
+    if (bucket == null || !equals(bucket.profile, profile)) {
+      bucket = new Bucket(profile, rates[0], rates[1]);
+      buckets.put(deviceName, bucket);
+    }
+
+    if (bucket.tryAcquire()) {
+      return true;
+    }
+
+    if (SAMPLE_POLICY.equalsIgnoreCase(policy) && sampleEvery > 0
+        && bucket.excess() % sampleEvery == 0) {
+      bucket.sampled.increment();
+      metrics.increment(Counter.MESSAGES_SAMPLED);
+      return true;
+    }
+
+    bucket.throttled.increment();
+    metrics.increment(Counter.MESSAGES_THROTTLED);
+    return false;
+  }
+
+  private double limit(String property, String profile, double otherwise) {
+    if (profile == null) {
+      return otherwise;
+    }
+    return environment.getProperty(property + "." + profile, Double.class, otherwise);
+  }
+
+  private static boolean equals(String a, String b) {
+    return a == null ? b == null : a.equals(b);
+  }
+
+  // forget the bucket of a device that is no longer managed
+  public void removeDevice(String deviceName) {
+    buckets.remove(deviceName);
+  }
+
+  /**
+   * @return the limits of each limited device and the messages it has had throttled
+   */
+  public List<ThrottleStatus> getStatus() {
+    List<ThrottleStatus> status = new ArrayList<>(buckets.size());
+    for (Map.Entry<String, Bucket> entry : buckets.entrySet()) {
+      Bucket bucket = entry.getValue();
+      status.add(new ThrottleStatus(entry.getKey(), bucket.profile, bucket.rate, bucket.burst,
+          bucket.admitted.sum(), bucket.throttled.sum(), bucket.sampled.sum()));
+    }
+    return status;
+  }
+
+  private static class Bucket {
+    private final String profile;
+    private final double rate;
+    private final double burst;
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder sampled = new LongAdder();
+
+    // guarded by this
+    private double tokens;
+    private long refilled = System.nanoTime();
+    private long excess;
+
+    Bucket(String profile, double rate, double burst) {
+      this.profile = profile;
+      this.rate = rate;
+      this.burst = burst > 0 ? burst : Math.max(1, rate);
+      this.tokens = this.burst;
+    }
+
+    synchronized boolean tryAcquire() {
+      long now = System.nanoTime();
+      tokens = Math.min(burst, tokens + (now - refilled) * rate / 1e9);
+      refilled = now;
+      if (tokens >= 1) {
+        tokens -= 1;
+        admitted.increment();
+        return true;
+      }
+      return false;
+    }
+
+    // number of the message over the limit, counting from 1
+    synchronized long excess() {
+      return ++excess;
+    }
+  }
+}
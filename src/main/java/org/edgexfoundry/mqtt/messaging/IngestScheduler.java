@@ -0,0 +1,177 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.mqtt.messaging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.log4j.Logger;
+import org.edgexfoundry.domain.IngestLaneStatus;
+import org.edgexfoundry.metrics.MetricsRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Dispatches incoming device messages onto a fixed set of single threaded lanes. A device is always
+ * hashed to the same lane so its readings reach the object cache and core data in arrival order,
+ * while different devices are processed in parallel without sharing a lock.
+ */
+@Component
+public class IngestScheduler {
+
+  private static final Logger logger = Logger.getLogger(IngestScheduler.class);
+
+  // number of lanes, 0 to use one lane per available processor
+  @Value("${ingest.lanes:0}")
+  private int laneCount;
+
+  // maximum number of messages waiting on a lane before the MQTT callback thread is held back
+  @Value("${ingest.lane.capacity:10000}")
+  private int laneCapacity;
+
+  @Autowired
+  private MetricsRegistry metrics;
+
+  private Lane[] lanes;
+
+  @PostConstruct
+  public void init() {
+    int count = laneCount > 0 ? laneCount : Runtime.getRuntime().availableProcessors();
+    lanes = new Lane[count];
+    for (int i = 0; i < count; i++) {
+      lanes[i] = new Lane(i, laneCapacity);
+      lanes[i].start();
+    }
+    logger.info("Started " + count + " ingest lanes with capacity " + laneCapacity);
+    metrics.gauge("ingest_queue_depth", this::getQueueDepth);
+  }
+
+  @PreDestroy
+  public void cleanup() {
+    for (Lane lane : lanes) {
+      lane.shutdown();
+    }
+  }
+
+  /**
+   * Queue a task on the lane owning the key (device name or topic). Blocks when the lane is full so
+   * that a backlog pushes back on the broker instead of growing without bound.
+   */
+  public void submit(String key, Runnable task) {
+    Lane lane = lanes[laneFor(key)];
+    try {
+      lane.queue.put(task);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      logger.error("Interrupted queueing message for " + key + ".  Mqtt message dropped.");
+    }
+  }
+
+  public int laneFor(String key) {
+    if (key == null) {
+      return 0;
+    }
+    // spread the hash so that similar device names do not cluster on a lane
+    int hash = key.hashCode();
+    hash ^= (hash >>> 16);
+    return Math.floorMod(hash, lanes.length);
+  }
+
+  public int getLaneCount() {
+    return lanes.length;
+  }
+
+  // messages waiting on all lanes
+  public long getQueueDepth() {
+    long depth = 0;
+    for (Lane lane : lanes) {
+      depth += lane.queue.size();
+    }
+    return depth;
+  }
+
+  public List<IngestLaneStatus> getStatus() {
+    List<IngestLaneStatus> status = new ArrayList<>(lanes.length);
+    for (Lane lane : lanes) {
+      status.add(lane.status());
+    }
+    return status;
+  }
+
+  private static class Lane extends Thread {
+    private final int index;
+    private final BlockingQueue<Runnable> queue;
+    // only written by the lane thread
+    private final AtomicLong processed = new AtomicLong();
+    private volatile boolean running = true;
+
+    // last throughput sample, guarded by the lane monitor
+    private long sampleCount;
+    private long sampleTime = System.nanoTime();
+
+    Lane(int index, int capacity) {
+      super("ingest-lane-" + index);
+      this.index = index;
+      this.queue = new LinkedBlockingQueue<>(capacity);
+      setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+      while (running) {
+        Runnable task;
+        try {
+          task = queue.take();
+        } catch (InterruptedException e) {
+          continue;
+        }
+
+        try {
+          task.run();
+        } catch (Exception e) {
+          logger.error("Problem processing message on " + getName() + ": " + e.getMessage());
+        }
+        processed.lazySet(processed.get() + 1);
+      }
+    }
+
+    void shutdown() {
+      running = false;
+      interrupt();
+    }
+
+    synchronized IngestLaneStatus status() {
+      long now = System.nanoTime();
+      long count = processed.get();
+      double elapsed = (now - sampleTime) / 1e9;
+      double throughput = elapsed > 0 ? (count - sampleCount) / elapsed : 0;
+      sampleCount = count;
+      sampleTime = now;
+      return new IngestLaneStatus(index, queue.size(), queue.remainingCapacity(), count,
+          throughput);
+    }
+  }
+}
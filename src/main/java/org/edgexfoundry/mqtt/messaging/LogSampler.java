@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.mqtt.messaging;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Picks the messages whose payload is logged: one in every so many, and no more than a number
+ * per second. The messages passed over are counted and reported with the next one logged, so a
+ * payload is only decoded into a string when it is written.
+ */
+public class LogSampler {
+
+  private final int every;
+  private final int perSecond;
+
+  private final AtomicLong seen = new AtomicLong();
+  private final AtomicLong skipped = new AtomicLong();
+  // the current second and the messages logged in it, packed as second << 20 | count
+  private final AtomicLong window = new AtomicLong();
+
+  /**
+   * @param every log one message in this many, 0 to log none
+   * @param perSecond log at most this many messages a second, 0 for no limit
+   */
+  public LogSampler(int every, int perSecond) {
+    this.every = every;
+    this.perSecond = Math.min(perSecond, (1 << 20) - 1);
+  }
+
+  /**
+   * @return true if this message should be logged
+   */
+  public boolean sample() {
+    if (every <= 0) {
+      return false;
+    }
+
+    if (seen.incrementAndGet() % every != 0 || !withinRate()) {
+      skipped.incrementAndGet();
+      return false;
+    }
+    return true;
+  }
+
+  private boolean withinRate() {
+    if (perSecond <= 0) {
+      return true;
+    }
+
+    // kept to the 44 bits above the count
+    long second = (System.nanoTime() / 1000000000L) & 0xFFFFFFFFFFFL;
+    while (true) {
+      long current = window.get();
+      long count = current >>> 20 == second ? current & 0xFFFFF : 0;
+      if (count >= perSecond) {
+        return false;
+      }
+      if (window.compareAndSet(current, (second << 20) | (count + 1))) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * @return the log line for a sampled message, with the number passed over since the last one
+   */
+  public String format(String prefix, byte[] payload) {
+    long passed = skipped.getAndSet(0);
+    String line = prefix + new String(payload);
+    return passed == 0 ? line : line + " (" + passed + " not logged)";
+  }
+}
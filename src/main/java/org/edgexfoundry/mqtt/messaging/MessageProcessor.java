@@ -22,4 +22,9 @@ public interface MessageProcessor {
 
   void process(byte[] messagePayload);
 
+  // arrival is the System.nanoTime() at which the message was received
+  default void process(byte[] messagePayload, long arrival) {
+    process(messagePayload);
+  }
+
 }
@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright 2016-2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.mqtt.messaging;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import org.apache.log4j.Logger;
+import org.edgexfoundry.domain.ConnectionStatus;
+
+/**
+ * Re-establishes a lost MQTT subscription off the Paho callback thread. Attempts are retried with
+ * an exponential backoff capped at the maximum delay; each delay is jittered so that several
+ * clients dropped by the same broker restart do not reconnect in lock step.
+ */
+public class MqttReconnector {
+
+  private static final Logger logger = Logger.getLogger(MqttReconnector.class);
+
+  private final String name;
+  private final BooleanSupplier connector;
+  private final long initialDelay;
+  private final long maxDelay;
+  private final ScheduledExecutorService executor;
+
+  private final AtomicBoolean reconnecting = new AtomicBoolean(false);
+  private final AtomicLong disconnects = new AtomicLong();
+  private final AtomicLong attempts = new AtomicLong();
+  private final AtomicLong reconnects = new AtomicLong();
+  private final AtomicLong totalGap = new AtomicLong();
+  private volatile long disconnectedAt;
+  private volatile long lastGap;
+  private volatile boolean connected;
+
+  /**
+   * @param name used for the reconnect thread and in the log
+   * @param connector connects and subscribes, returning true on success
+   * @param initialDelay delay before the first attempt in milliseconds
+   * @param maxDelay upper bound of the delay between attempts in milliseconds
+   */
+  public MqttReconnector(String name, BooleanSupplier connector, long initialDelay,
+      long maxDelay) {
+    this.name = name;
+    this.connector = connector;
+    this.initialDelay = Math.max(initialDelay, 1);
+    this.maxDelay = Math.max(maxDelay, this.initialDelay);
+    this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, name + "-reconnect");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  public void connected() {
+    connected = true;
+  }
+
+  /**
+   * Start the reconnect loop unless one is already running. Safe to call from the Paho callback
+   * thread as it returns immediately.
+   */
+  public void connectionLost() {
+    connected = false;
+    disconnects.incrementAndGet();
+    if (reconnecting.compareAndSet(false, true)) {
+      disconnectedAt = System.currentTimeMillis();
+      schedule(0);
+    }
+  }
+
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private void schedule(int attempt) {
+    long delay = delay(attempt);
+    logger.info("Reconnecting " + name + " in " + delay + "ms (attempt " + (attempt + 1) + ")");
+    executor.schedule(() -> attempt(attempt), delay, TimeUnit.MILLISECONDS);
+  }
+
+  // milliseconds to wait before the attempt, counted from 0
+  long delay(int attempt) {
+    long delay = initialDelay << Math.min(attempt, 20);
+    if (delay <= 0 || delay > maxDelay) {
+      delay = maxDelay;
+    }
+    // equal jitter: wait between half and all of the backoff delay
+    return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+  }
+
+  private void attempt(int attempt) {
+    attempts.incrementAndGet();
+    boolean success;
+    try {
+      success = connector.getAsBoolean();
+    } catch (Exception e) {
+      logger.error("Reconnect of " + name + " failed: " + e.getMessage());
+      success = false;
+    }
+
+    if (success) {
+      lastGap = System.currentTimeMillis() - disconnectedAt;
+      totalGap.addAndGet(lastGap);
+      reconnects.incrementAndGet();
+      connected = true;
+      reconnecting.set(false);
+      logger.info("Reconnected " + name + " after " + lastGap + "ms");
+    } else if (!executor.isShutdown()) {
+      schedule(attempt + 1);
+    }
+  }
+
+  public ConnectionStatus getStatus() {
+    return new ConnectionStatus(name, connected, disconnects.get(), attempts.get(),
+        reconnects.get(), lastGap, totalGap.get());
+  }
+}
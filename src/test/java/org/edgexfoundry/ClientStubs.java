@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright 2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stand-ins for the EdgeX REST clients, so the service can be exercised offline. A stub returns
+ * what its answer gives, or when that is null an empty list, zero, false or null by return type.
+ */
+public final class ClientStubs {
+
+  @FunctionalInterface
+  public interface Answer {
+    Object answer(Method method, Object[] args);
+  }
+
+  private ClientStubs() {}
+
+  public static <T> T stub(Class<T> client) {
+    return stub(client, (method, args) -> null);
+  }
+
+  public static <T> T stub(Class<T> client, Answer answer) {
+    InvocationHandler handler = (proxy, method, args) -> {
+      if (method.getDeclaringClass() == Object.class) {
+        switch (method.getName()) {
+          case "equals":
+            return proxy == args[0];
+          case "hashCode":
+            return System.identityHashCode(proxy);
+          default:
+            return "stub " + client.getSimpleName();
+        }
+      }
+
+      Object result = answer.answer(method, args);
+      return result != null ? result : defaultValue(method.getReturnType());
+    };
+
+    return client
+        .cast(Proxy.newProxyInstance(client.getClassLoader(), new Class<?>[] {client}, handler));
+  }
+
+  private static Object defaultValue(Class<?> type) {
+    if (type == List.class) {
+      // callers add to some of the lists they are given
+      return new ArrayList<>();
+    } else if (type == boolean.class) {
+      return false;
+    } else if (type == char.class) {
+      return '\0';
+    } else if (type == byte.class) {
+      return (byte) 0;
+    } else if (type == short.class) {
+      return (short) 0;
+    } else if (type == int.class) {
+      return 0;
+    } else if (type == long.class) {
+      return 0L;
+    } else if (type == float.class) {
+      return 0f;
+    } else if (type == double.class) {
+      return 0d;
+    }
+    return null;
+  }
+}
@@ -0,0 +1,206 @@
+/*******************************************************************************
+ * Copyright 2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.edgexfoundry.domain.LatencyStatus;
+import org.edgexfoundry.domain.meta.Addressable;
+import org.edgexfoundry.domain.meta.Device;
+import org.edgexfoundry.domain.meta.DeviceProfile;
+import org.edgexfoundry.domain.meta.Protocol;
+import org.edgexfoundry.handler.CommandHandler;
+import org.edgexfoundry.metrics.Histogram;
+import org.edgexfoundry.mqtt.messaging.CommandResponseListener;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/*
+ * Load test of the command path without any outside service: commands go through CommandHandler
+ * as REST commands do, are published to the devices over an embedded broker, answered by a
+ * simulated fleet and correlated from the response topic. Metadata and core data are stubbed.
+ *
+ * The defaults keep the run short enough for every build. Larger runs set system properties,
+ * for example: mvn test -Dtest=CommandLoadTest -Dload.devices=200 -Dload.commands=20000
+ * -Dload.concurrency=2000 -Dload.latency=5 -Dload.jitter=20 -Dload.loss=0.01
+ */
+public class CommandLoadTest {
+
+  private static final String PROFILE = "MQTTTestDeviceProfile.yml";
+  private static final String COMMAND = "randnum";
+  private static final String COMMAND_TOPIC = "CommandTopic";
+  private static final String RESPONSE_TOPIC = "ResponseTopic";
+  private static final String USER = "load";
+
+  private static final int DEVICES = Integer.getInteger("load.devices", 20);
+  private static final int COMMANDS = Integer.getInteger("load.commands", 1000);
+  private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 250);
+  // milliseconds the devices take to answer, plus up to the jitter at random
+  private static final long LATENCY = Long.getLong("load.latency", 2);
+  private static final long JITTER = Long.getLong("load.jitter", 10);
+  private static final double LOSS = Double.parseDouble(System.getProperty("load.loss", "0"));
+  // milliseconds after which an unanswered command is counted as lost
+  private static final long TIMEOUT = Long.getLong("load.timeout", 10000);
+
+  private EmbeddedBroker broker;
+  private SimulatedFleet fleet;
+  private CommandResponseListener listener;
+  private ServiceFixture service;
+  private Device[] devices;
+
+  @Before
+  public void setup() throws Exception {
+    broker = new EmbeddedBroker();
+    fleet = new SimulatedFleet(broker.getUrl(), COMMAND_TOPIC + "/#", RESPONSE_TOPIC, LATENCY,
+        JITTER, LOSS, 4);
+
+    service = new ServiceFixture();
+    listener = new CommandResponseListener();
+    ReflectionTestUtils.setField(listener, "cmdrespMqttBrokerProtocol", "tcp");
+    ReflectionTestUtils.setField(listener, "cmdrespMqttBroker", broker.getAddress());
+    ReflectionTestUtils.setField(listener, "cmdrespMqttBrokerPort",
+        String.valueOf(broker.getPort()));
+    ReflectionTestUtils.setField(listener, "cmdrespMqttClientId", "CommandResponseSubscriber");
+    ReflectionTestUtils.setField(listener, "cmdrespMqttTopic", RESPONSE_TOPIC);
+    ReflectionTestUtils.setField(listener, "cmdrespMqttQos", 0);
+    ReflectionTestUtils.setField(listener, "cmdrespMqttUser", USER);
+    ReflectionTestUtils.setField(listener, "cmdrespMqttPassword", USER);
+    ReflectionTestUtils.setField(listener, "cmdrespMqttKeepAlive", 3600);
+    ReflectionTestUtils.setField(listener, "cmdrespMqttCleanSession", true);
+    ReflectionTestUtils.setField(listener, "cmdrespMqttPersistenceDir",
+        System.getProperty("java.io.tmpdir"));
+    ReflectionTestUtils.setField(listener, "reconnectInitialDelay", 1000L);
+    ReflectionTestUtils.setField(listener, "reconnectMaxDelay", 1000L);
+    ReflectionTestUtils.setField(listener, "processor", service.getResponses());
+    listener.init();
+
+    DeviceProfile profile = ServiceFixture.loadProfile(PROFILE);
+    devices = new Device[DEVICES];
+    for (int i = 0; i < DEVICES; i++) {
+      String name = "LoadDevice" + i;
+      Addressable addressable = new Addressable(name + "Addressable", Protocol.TCP,
+          broker.getAddress(), broker.getPort(), name + "Publisher", USER, USER,
+          COMMAND_TOPIC + "/" + name);
+      devices[i] = service.addDevice(name, profile, addressable);
+    }
+  }
+
+  @After
+  public void cleanup() throws Exception {
+    listener.cleanup();
+    ReflectionTestUtils.invokeMethod(service.getDriver(), "sendorCleanUp");
+    service.close();
+    fleet.close();
+    broker.close();
+  }
+
+  @Test
+  public void testCommandRoundTrips() throws Exception {
+    CommandHandler commands = service.getCommands();
+    Histogram latency = new Histogram(4);
+    LongAdder completed = new LongAdder();
+    LongAdder failed = new LongAdder();
+    AtomicLong finished = new AtomicLong();
+
+    // commands that are never answered keep their thread, so threads are not pooled
+    ExecutorService callers = Executors.newCachedThreadPool(r -> {
+      Thread thread = new Thread(r, "load-caller");
+      thread.setDaemon(true);
+      return thread;
+    });
+    ScheduledExecutorService timeouts = Executors.newSingleThreadScheduledExecutor();
+    Semaphore slots = new Semaphore(CONCURRENCY);
+    List<CompletableFuture<Map<String, String>>> calls = new ArrayList<>(COMMANDS);
+
+    long start = System.nanoTime();
+    for (int i = 0; i < COMMANDS; i++) {
+      slots.acquire();
+      AtomicBoolean released = new AtomicBoolean();
+      Runnable release = () -> {
+        if (released.compareAndSet(false, true)) {
+          slots.release();
+        }
+      };
+
+      String deviceId = devices[i % DEVICES].getId();
+      long issued = System.nanoTime();
+      CompletableFuture<Map<String, String>> call = CompletableFuture
+          .supplyAsync(() -> commands.getResponse(deviceId, COMMAND, null), callers);
+      call.whenComplete((response, error) -> {
+        long now = System.nanoTime();
+        if (error == null && response != null && response.containsKey(COMMAND)) {
+          latency.record(now - issued);
+          completed.increment();
+        } else {
+          failed.increment();
+        }
+        finished.accumulateAndGet(now, Math::max);
+        release.run();
+      });
+      timeouts.schedule(release, TIMEOUT, TimeUnit.MILLISECONDS);
+      calls.add(call);
+    }
+
+    try {
+      CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[0])).get(TIMEOUT,
+          TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      // whatever is still outstanding is lost
+    }
+    timeouts.shutdownNow();
+    // interrupting a caller would fail its command, the outstanding ones are left to finish
+    callers.shutdown();
+
+    long done = completed.sum();
+    long failures = failed.sum();
+    long lost = COMMANDS - done - failures;
+    double seconds = (Math.max(finished.get(), start) - start) / 1e9;
+    LatencyStatus status = latency.status(COMMAND);
+
+    System.out.println(String.format(
+        "%d commands to %d devices, %d concurrent, device latency %d-%d ms, loss %.3f: "
+            + "%d completed, %d failed, %d lost, %.1f commands/s, round trip ms p50 %.2f "
+            + "p99 %.2f p999 %.2f max %.2f",
+        COMMANDS, DEVICES, CONCURRENCY, LATENCY, LATENCY + JITTER, LOSS, done, failures, lost,
+        seconds > 0 ? done / seconds : 0, status.getP50() / 1000, status.getP99() / 1000,
+        status.getP999() / 1000, status.getMax() / 1000));
+    System.out.println(String.format("fleet received %d, answered %d, dropped %d",
+        fleet.getReceived(), fleet.getAnswered(), fleet.getDropped()));
+
+    assertEquals("commands failed in the service", 0, failures);
+    assertTrue("no command completed", done > 0);
+  }
+}
@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright 2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Properties;
+
+import io.moquette.broker.Server;
+import io.moquette.broker.config.MemoryConfig;
+
+/**
+ * An in-process MQTT broker on a free local port, keeping its sessions in memory.
+ */
+public class EmbeddedBroker implements AutoCloseable {
+
+  private final Server server = new Server();
+  private final int port;
+
+  public EmbeddedBroker() throws IOException {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      port = socket.getLocalPort();
+    }
+
+    Properties properties = new Properties();
+    properties.setProperty("host", "127.0.0.1");
+    properties.setProperty("port", String.valueOf(port));
+    properties.setProperty("websocket_port", "disabled");
+    properties.setProperty("allow_anonymous", "true");
+    properties.setProperty("persistent_store", "");
+    // otherwise writes wait for a periodic flush, and QoS 0 messages to a subscriber whose
+    // unflushed buffer is full are dropped
+    properties.setProperty("immediate_buffer_flush", "true");
+    server.startServer(new MemoryConfig(properties));
+  }
+
+  public String getAddress() {
+    return "127.0.0.1";
+  }
+
+  public int getPort() {
+    return port;
+  }
+
+  public String getUrl() {
+    return "tcp://" + getAddress() + ":" + port;
+  }
+
+  @Override
+  public void close() {
+    server.stopServer();
+  }
+}
@@ -0,0 +1,217 @@
+/*******************************************************************************
+ * Copyright 2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.edgexfoundry.domain.core.Event;
+import org.edgexfoundry.domain.core.Reading;
+import org.edgexfoundry.domain.meta.Device;
+import org.edgexfoundry.domain.meta.DeviceObject;
+import org.edgexfoundry.domain.meta.DeviceProfile;
+import org.edgexfoundry.domain.meta.ResourceOperation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.gson.JsonObject;
+
+/*
+ * The ingest path wired end to end by the service fixture: messages are handed to the incoming
+ * processor, pass the limiter and the ingest lanes, and are cached, filtered, aggregated and posted
+ * to the stubbed core data as the profile of their device configures, and commands are answered
+ * from the values cached on the way. The behaviour of each stage is tested on its own class; these
+ * tests check the stages are connected.
+ */
+public class IngestPipelineTest {
+
+  private static final String PROFILE = "MQTTTestDeviceProfile.yml";
+
+  private ServiceFixture service;
+  private DeviceProfile profile;
+
+  @Before
+  public void setup() throws IOException {
+    service = new ServiceFixture();
+    profile = ServiceFixture.loadProfile(PROFILE);
+    service.startIngest(2, 1000);
+  }
+
+  @After
+  public void cleanup() {
+    service.close();
+  }
+
+  @SuppressWarnings("unchecked")
+  private void setAttribute(String name, String value) {
+    for (DeviceObject object : profile.getDeviceResources()) {
+      if (object.getName().equals("randnum")) {
+        ((Map<String, Object>) object.getAttributes()).put(name, value);
+      }
+    }
+  }
+
+  private void send(String deviceName, String value) {
+    JsonObject json = new JsonObject();
+    json.addProperty("name", deviceName);
+    json.addProperty("randnum", value);
+    service.getIncoming().process(json.toString().getBytes());
+  }
+
+  // wait for the messages of the device sent so far to be processed
+  private void drain(String deviceName) throws InterruptedException {
+    CountDownLatch done = new CountDownLatch(1);
+    service.getScheduler().submit(deviceName, done::countDown);
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+  }
+
+  private long counter(String name) {
+    return service.getMetrics().getStatus().getCounters().get(name);
+  }
+
+  private boolean requiresQuery(long maxAge, Device device) {
+    ResourceOperation operation = service.getProfiles().getCommands().get(device.getName())
+        .get("randnum").get("get").get(0);
+    return ReflectionTestUtils.invokeMethod(service.getHandler(), "requiresQuery", maxAge, "get",
+        device, operation);
+  }
+
+  @Test
+  public void testThrottled() throws InterruptedException {
+    ReflectionTestUtils.setField(service.getLimiter(), "rateLimit", 1.0);
+    ReflectionTestUtils.setField(service.getLimiter(), "rateBurst", 5.0);
+    service.addDevice("Noisy", profile, null);
+    service.addDevice("Quiet", profile, null);
+
+    for (int i = 0; i < 100; i++) {
+      send("Noisy", String.valueOf(i));
+    }
+    for (int i = 0; i < 5; i++) {
+      send("Quiet", String.valueOf(i));
+    }
+    drain("Noisy");
+    drain("Quiet");
+
+    // the burst of each device, one more for the noisy one if a second has passed
+    long events = service.getEventCount();
+    assertTrue(String.valueOf(events), events >= 10 && events <= 11);
+    assertEquals(100 - (events - 5), counter("messages_throttled"));
+  }
+
+  @Test
+  public void testLastConnectedCoalesced() throws InterruptedException {
+    service.addDevice("Chatty", profile, null);
+    for (int i = 0; i < 100; i++) {
+      send("Chatty", String.valueOf(i));
+    }
+    drain("Chatty");
+
+    // every event posted, one last connected time waiting for the flush
+    assertEquals(100, service.getEventCount());
+    assertEquals(1, service.getLastConnected().getPendingCount());
+  }
+
+  @Test
+  public void testHeldBack() throws InterruptedException {
+    setAttribute("deadband", "1.0");
+    service.addDevice("Steady", profile, null);
+    for (String value : new String[] {"20.0", "20.5", "20.9", "21.1", "21.5", "19.5"}) {
+      send("Steady", value);
+    }
+    drain("Steady");
+
+    // 20.0, then 21.1 and 19.5 moved more than 1.0 from the last reported value
+    assertEquals(3, service.getEventCount());
+    assertEquals(3, counter("readings_filtered"));
+    // held back values are still cached
+    assertEquals("19.5", service.getObjectCache().get("steady", "randnum"));
+  }
+
+  @Test
+  public void testSummarised() throws InterruptedException {
+    setAttribute("aggregate", "200");
+    service.addDevice("Busy", profile, null);
+    assertTrue(service.getProfiles().descriptorExists("randnum_avg"));
+
+    service.setRecording(true);
+    for (int i = 0; i < 50; i++) {
+      send("Busy", String.valueOf(i));
+    }
+    drain("Busy");
+    Thread.sleep(250);
+    service.sweepAggregates();
+
+    // every value counted once, in a summary event per window instead of an event per value
+    long count = 0;
+    for (Event event : service.getRecorded()) {
+      assertEquals(4, event.getReadings().size());
+      for (Reading reading : event.getReadings()) {
+        if (reading.getName().equals("randnum_count")) {
+          count += Long.parseLong(reading.getValue());
+        }
+      }
+    }
+    assertEquals(50, count);
+    assertTrue(service.getRecorded().size() <= 3);
+    assertEquals(50, counter("readings_aggregated"));
+  }
+
+  @Test
+  public void testServedFromCache() throws InterruptedException {
+    Device device = service.addDevice("Reporting", profile, null);
+    send("Reporting", "42.5");
+    drain("Reporting");
+    assertEquals(1, service.getEventCount());
+
+    Map<String, String> response =
+        service.getHandler().executeCommand(device, "randnum", null, 60000L);
+    assertEquals("42.5", response.get("randnum"));
+    // the cached reading was posted when it arrived and is not posted again
+    assertEquals(1, service.getEventCount());
+    assertEquals(1, counter("cache_hits"));
+    assertEquals(0, counter("cache_misses"));
+    assertEquals(100, service.getHandler().getCacheHitPercent());
+  }
+
+  @Test
+  public void testQueried() throws InterruptedException {
+    Device device = service.addDevice("Reporting", profile, null);
+    // nothing cached yet
+    assertTrue(requiresQuery(60000, device));
+
+    send("Reporting", "42.5");
+    drain("Reporting");
+    assertFalse(requiresQuery(60000, device));
+    // cached values not accepted
+    assertTrue(requiresQuery(0, device));
+
+    Thread.sleep(20);
+    assertTrue(requiresQuery(10, device));
+    assertEquals(1, counter("cache_hits"));
+    assertEquals(2, counter("cache_misses"));
+  }
+}
@@ -0,0 +1,303 @@
+/*******************************************************************************
+ * Copyright 2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.edgexfoundry.controller.DeviceClient;
+import org.edgexfoundry.controller.EventClient;
+import org.edgexfoundry.controller.ValueDescriptorClient;
+import org.edgexfoundry.data.DeviceStore;
+import org.edgexfoundry.data.ObjectStore;
+import org.edgexfoundry.data.ProfileStore;
+import org.edgexfoundry.data.ReadingAggregator;
+import org.edgexfoundry.domain.core.Event;
+import org.edgexfoundry.domain.meta.Addressable;
+import org.edgexfoundry.domain.meta.AdminState;
+import org.edgexfoundry.domain.meta.Device;
+import org.edgexfoundry.domain.meta.DeviceProfile;
+import org.edgexfoundry.domain.meta.DeviceService;
+import org.edgexfoundry.domain.meta.OperatingState;
+import org.edgexfoundry.handler.CommandHandler;
+import org.edgexfoundry.handler.CoreDataMessageHandler;
+import org.edgexfoundry.handler.LastConnectedTracker;
+import org.edgexfoundry.handler.MqttHandler;
+import org.edgexfoundry.metrics.MetricsRegistry;
+import org.edgexfoundry.mqtt.MqttDriver;
+import org.edgexfoundry.mqtt.ObjectTransform;
+import org.edgexfoundry.mqtt.messaging.CommandResponseMessageProcessor;
+import org.edgexfoundry.mqtt.messaging.IncomingMessageProcessor;
+import org.edgexfoundry.mqtt.messaging.IngestLimiter;
+import org.edgexfoundry.mqtt.messaging.IngestScheduler;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.yaml.snakeyaml.Yaml;
+
+/**
+ * The device service wired by hand, without Spring or a broker, with the metadata, value
+ * descriptor and core data clients stubbed. Events posted to core data are counted, and kept
+ * while recording is on. Aggregate windows are closed by sweepAggregates rather than on a timer.
+ * Close the fixture to stop the threads its services start.
+ */
+public class ServiceFixture implements AutoCloseable {
+
+  private final MetricsRegistry metrics = new MetricsRegistry();
+  private final ProfileStore profiles = new ProfileStore();
+  private final DeviceStore devices = new DeviceStore();
+  private final ObjectStore objectCache = new ObjectStore();
+  private final ObjectTransform transform = new ObjectTransform();
+  private final CoreDataMessageHandler processor = new CoreDataMessageHandler();
+  private final MqttHandler handler = new MqttHandler();
+  private final MqttDriver driver = new MqttDriver();
+  private final CommandResponseMessageProcessor responses = new CommandResponseMessageProcessor();
+  private final CommandHandler commands = new CommandHandler();
+  private final Initializer init = new Initializer();
+  private final IngestScheduler scheduler = new IngestScheduler();
+  private final IncomingMessageProcessor incoming = new IncomingMessageProcessor();
+  private final IngestLimiter limiter = new IngestLimiter();
+  private final LastConnectedTracker lastConnected = new LastConnectedTracker();
+  private final ReadingAggregator aggregator = new ReadingAggregator();
+
+  private final LongAdder events = new LongAdder();
+  private final Queue<Event> recorded = new ConcurrentLinkedQueue<>();
+  private volatile boolean recording;
+  private boolean ingesting;
+
+  public ServiceFixture() {
+    metrics.setEnabled(true);
+
+    EventClient eventClient = ClientStubs.stub(EventClient.class, (method, args) -> {
+      if (method.getName().equals("add")) {
+        events.increment();
+        if (recording) {
+          recorded.add((Event) args[0]);
+        }
+      }
+      return null;
+    });
+
+    ReflectionTestUtils.setField(profiles, "valueDescriptorClient",
+        ClientStubs.stub(ValueDescriptorClient.class));
+
+    ReflectionTestUtils.setField(transform, "objectCache", objectCache);
+
+    ReflectionTestUtils.setField(objectCache, "profiles", profiles);
+    ReflectionTestUtils.setField(objectCache, "transform", transform);
+    ReflectionTestUtils.setField(objectCache, "processor", processor);
+    ReflectionTestUtils.setField(objectCache, "cacheSize", 1);
+    ReflectionTestUtils.setField(objectCache, "metrics", metrics);
+    ReflectionTestUtils.setField(objectCache, "aggregator", aggregator);
+    objectCache.setTransformData(true);
+
+    ReflectionTestUtils.setField(aggregator, "profiles", profiles);
+    ReflectionTestUtils.setField(aggregator, "processor", processor);
+    ReflectionTestUtils.setField(aggregator, "metrics", metrics);
+    // windows are only swept when a test asks, see sweepAggregates
+    ReflectionTestUtils.setField(aggregator, "sweepInterval", TimeUnit.HOURS.toMillis(1));
+    aggregator.init();
+
+    ReflectionTestUtils.setField(processor, "retries", 1);
+    ReflectionTestUtils.setField(processor, "eventClient", eventClient);
+    ReflectionTestUtils.setField(processor, "devices", devices);
+    ReflectionTestUtils.setField(processor, "metrics", metrics);
+    ReflectionTestUtils.setField(processor, "lastConnected", lastConnected);
+
+    ReflectionTestUtils.setField(lastConnected, "deviceClient",
+        ClientStubs.stub(DeviceClient.class));
+    ReflectionTestUtils.setField(lastConnected, "devices", devices);
+    ReflectionTestUtils.setField(lastConnected, "metrics", metrics);
+    ReflectionTestUtils.setField(lastConnected, "flushInterval", 30000L);
+    lastConnected.init();
+
+    ReflectionTestUtils.setField(handler, "driver", driver);
+    ReflectionTestUtils.setField(handler, "profiles", profiles);
+    ReflectionTestUtils.setField(handler, "transform", transform);
+    ReflectionTestUtils.setField(handler, "objectCache", objectCache);
+    ReflectionTestUtils.setField(handler, "processor", processor);
+    ReflectionTestUtils.setField(handler, "metrics", metrics);
+    ReflectionTestUtils.setField(handler, "environment", new StandardEnvironment());
+
+    ReflectionTestUtils.setField(driver, "profiles", profiles);
+    ReflectionTestUtils.setField(driver, "devices", devices);
+    ReflectionTestUtils.setField(driver, "objectCache", objectCache);
+    ReflectionTestUtils.setField(driver, "handler", handler);
+    ReflectionTestUtils.setField(driver, "responseProcessor", responses);
+    ReflectionTestUtils.setField(driver, "metrics", metrics);
+
+    ReflectionTestUtils.setField(devices, "profiles", profiles);
+    ReflectionTestUtils.setField(devices, "objectCache", objectCache);
+    ReflectionTestUtils.setField(devices, "metrics", metrics);
+
+    DeviceService service = new DeviceService();
+    service.setName("device-mqtt");
+    service.setAdminState(AdminState.UNLOCKED);
+    service.setOperatingState(OperatingState.ENABLED);
+    ReflectionTestUtils.setField(init, "service", service);
+
+    ReflectionTestUtils.setField(commands, "mqtt", handler);
+    ReflectionTestUtils.setField(commands, "devices", devices);
+    ReflectionTestUtils.setField(commands, "init", init);
+
+    ReflectionTestUtils.setField(scheduler, "metrics", metrics);
+    ReflectionTestUtils.setField(incoming, "handler", handler);
+    ReflectionTestUtils.setField(incoming, "scheduler", scheduler);
+    ReflectionTestUtils.setField(incoming, "metrics", metrics);
+    ReflectionTestUtils.setField(incoming, "limiter", limiter);
+
+    ReflectionTestUtils.setField(limiter, "devices", devices);
+    ReflectionTestUtils.setField(limiter, "metrics", metrics);
+    ReflectionTestUtils.setField(limiter, "environment", new StandardEnvironment());
+    ReflectionTestUtils.setField(limiter, "policy", "drop");
+    limiter.init();
+  }
+
+  /**
+   * Start the ingest lanes behind the incoming message processor.
+   *
+   * @param lanes number of lanes, 0 for one per processor
+   */
+  public void startIngest(int lanes, int capacity) {
+    ReflectionTestUtils.setField(scheduler, "laneCount", lanes);
+    ReflectionTestUtils.setField(scheduler, "laneCapacity", capacity);
+    scheduler.init();
+    ingesting = true;
+  }
+
+  public void stopIngest() {
+    scheduler.cleanup();
+    ingesting = false;
+  }
+
+  /**
+   * Stop the last connected flush and aggregate sweep threads, and the ingest lanes if started.
+   */
+  @Override
+  public void close() {
+    if (ingesting) {
+      stopIngest();
+    }
+    lastConnected.cleanup();
+    aggregator.cleanup();
+  }
+
+  public static DeviceProfile loadProfile(String file) throws IOException {
+    try (InputStream input = new FileInputStream(new File(file))) {
+      return new Yaml().loadAs(input, DeviceProfile.class);
+    }
+  }
+
+  /**
+   * Manage an enabled, unlocked device, as the service does once metadata has it.
+   */
+  public Device addDevice(String name, DeviceProfile profile, Addressable addressable) {
+    Device device = new Device();
+    device.setName(name);
+    device.setId(name.toLowerCase());
+    device.setAdminState(AdminState.UNLOCKED);
+    device.setOperatingState(OperatingState.ENABLED);
+    device.setProfile(profile);
+    device.setAddressable(addressable);
+    profiles.addDevice(device);
+    ReflectionTestUtils.invokeMethod(devices, "register", device);
+    return device;
+  }
+
+  public MetricsRegistry getMetrics() {
+    return metrics;
+  }
+
+  public ProfileStore getProfiles() {
+    return profiles;
+  }
+
+  public DeviceStore getDevices() {
+    return devices;
+  }
+
+  public ObjectStore getObjectCache() {
+    return objectCache;
+  }
+
+  public ObjectTransform getTransform() {
+    return transform;
+  }
+
+  public MqttHandler getHandler() {
+    return handler;
+  }
+
+  public MqttDriver getDriver() {
+    return driver;
+  }
+
+  public CommandResponseMessageProcessor getResponses() {
+    return responses;
+  }
+
+  public CommandHandler getCommands() {
+    return commands;
+  }
+
+  public ReadingAggregator getAggregator() {
+    return aggregator;
+  }
+
+  // send the aggregate windows that are over, as the periodic sweep would
+  public void sweepAggregates() {
+    ReflectionTestUtils.invokeMethod(aggregator, "sweep");
+  }
+
+  public LastConnectedTracker getLastConnected() {
+    return lastConnected;
+  }
+
+  public IngestLimiter getLimiter() {
+    return limiter;
+  }
+
+  public IngestScheduler getScheduler() {
+    return scheduler;
+  }
+
+  // the processor the incoming listener hands messages to, once ingest is started
+  public IncomingMessageProcessor getIncoming() {
+    return incoming;
+  }
+
+  // events posted to core data so far
+  public long getEventCount() {
+    return events.sum();
+  }
+
+  public void setRecording(boolean recording) {
+    this.recording = recording;
+  }
+
+  // events posted to core data while recording, oldest first
+  public Queue<Event> getRecorded() {
+    return recorded;
+  }
+}
@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright 2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
+import org.eclipse.paho.client.mqttv3.MqttCallback;
+import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Devices answering the commands the service publishes, as TestMqttDeviceCommandRec does: the
+ * command message comes back on the response topic with the value of the command added. Each
+ * answer is delayed by the latency plus a random jitter, and a share of the commands is never
+ * answered.
+ */
+public class SimulatedFleet implements MqttCallback, AutoCloseable {
+
+  private static final String CMD_KEY = "cmd";
+  private static final String METHOD_KEY = "method";
+  private static final String PARAM_KEY = "param";
+
+  private final String responseTopic;
+  private final long latency;
+  private final long jitter;
+  private final double loss;
+
+  private final JsonParser parser = new JsonParser();
+  private final MqttClient commands;
+  private final MqttClient responses;
+  private final ScheduledExecutorService answers;
+
+  private final LongAdder received = new LongAdder();
+  private final LongAdder answered = new LongAdder();
+  private final LongAdder dropped = new LongAdder();
+
+  /**
+   * @param commandTopic filter of the topics the devices are commanded on
+   * @param latency milliseconds before every answer
+   * @param jitter up to this many more milliseconds, at random
+   * @param loss share of the commands dropped, 0 to 1
+   */
+  public SimulatedFleet(String brokerUrl, String commandTopic, String responseTopic, long latency,
+      long jitter, double loss, int threads) throws MqttException {
+    this.responseTopic = responseTopic;
+    this.latency = latency;
+    this.jitter = jitter;
+    this.loss = loss;
+
+    answers = Executors.newScheduledThreadPool(threads, r -> {
+      Thread thread = new Thread(r, "simulated-fleet");
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    responses = connect(brokerUrl, "SimulatedFleetResponses");
+    commands = connect(brokerUrl, "SimulatedFleetCommands");
+    commands.setCallback(this);
+    commands.subscribe(commandTopic, 0);
+  }
+
+  private MqttClient connect(String brokerUrl, String clientId) throws MqttException {
+    MqttClient client = new MqttClient(brokerUrl, clientId, new MemoryPersistence());
+    MqttConnectOptions connOpts = new MqttConnectOptions();
+    connOpts.setCleanSession(true);
+    connOpts.setMaxInflight(65535);
+    client.connect(connOpts);
+    return client;
+  }
+
+  @Override
+  public void messageArrived(String topic, MqttMessage message) {
+    received.increment();
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    if (random.nextDouble() < loss) {
+      dropped.increment();
+      return;
+    }
+
+    JsonObject command = parser.parse(new String(message.getPayload())).getAsJsonObject();
+    long delay = latency + (jitter > 0 ? random.nextLong(jitter + 1) : 0);
+    answers.schedule(() -> answer(command), delay, TimeUnit.MILLISECONDS);
+  }
+
+  private void answer(JsonObject command) {
+    String cmd = command.get(CMD_KEY).getAsString();
+    JsonElement param = command.get(PARAM_KEY);
+    if ("set".equals(command.get(METHOD_KEY).getAsString()) && param != null) {
+      command.add(cmd, param);
+    } else {
+      command.addProperty(cmd,
+          String.valueOf(Math.round(ThreadLocalRandom.current().nextDouble(100) * 100) / 100.0));
+    }
+
+    try {
+      responses.publish(responseTopic, command.toString().getBytes(), 0, false);
+      answered.increment();
+    } catch (MqttException e) {
+      System.out.println("Could not answer " + command + ": " + e.getMessage());
+    }
+  }
+
+  @Override
+  public void connectionLost(Throwable cause) {
+    System.out.println("Simulated fleet lost its connection: " + cause.getMessage());
+  }
+
+  @Override
+  public void deliveryComplete(IMqttDeliveryToken token) {}
+
+  public long getReceived() {
+    return received.sum();
+  }
+
+  public long getAnswered() {
+    return answered.sum();
+  }
+
+  public long getDropped() {
+    return dropped.sum();
+  }
+
+  @Override
+  public void close() throws MqttException {
+    answers.shutdownNow();
+    commands.disconnect();
+    commands.close();
+    responses.disconnect();
+    responses.close();
+  }
+}
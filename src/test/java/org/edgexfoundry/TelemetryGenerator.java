@@ -0,0 +1,248 @@
+/*******************************************************************************
+ * Copyright 2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.edgexfoundry.domain.meta.DeviceObject;
+import org.edgexfoundry.domain.meta.DeviceProfile;
+import org.edgexfoundry.domain.meta.PropertyValue;
+
+import com.google.gson.JsonObject;
+
+/**
+ * Publishes telemetry for a fleet of devices on the incoming data topic, as TestMqttDeviceSendor
+ * does for one device. Every message names its device and carries a value for each readable
+ * resource of the profile, in range for the resource type.
+ *
+ * The fleet publishes at a target rate in total, so each device reports every devices / rate
+ * seconds from a random phase. Jitter stretches or shortens each interval at random by up to that
+ * share of it. The schedule is open loop: a publisher that falls behind sends what is due at once
+ * rather than slowing down, and the lag is reported.
+ */
+public class TelemetryGenerator implements AutoCloseable {
+
+  private static final String IDENTIFIER_KEY = "name";
+
+  private final String topic;
+  private final int qos;
+  private final List<DeviceObject> readable = new ArrayList<>();
+  private final List<Publisher> publishers = new ArrayList<>();
+
+  private final LongAdder sent = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+  private boolean closed;
+
+  /**
+   * @param rate messages per second from the whole fleet
+   * @param jitter share of each interval a device is early or late by, 0 to 1
+   * @param threads publishing threads, each with its own connection and share of the devices
+   */
+  public TelemetryGenerator(String brokerUrl, String topic, int qos, DeviceProfile profile,
+      List<String> deviceNames, double rate, double jitter, int threads) throws MqttException {
+    this.topic = topic;
+    this.qos = qos;
+
+    for (DeviceObject object : profile.getDeviceResources()) {
+      String readWrite = object.getProperties().getValue().getReadWrite();
+      if (readWrite != null && readWrite.toLowerCase().contains("r")) {
+        readable.add(object);
+      }
+    }
+
+    long period = (long) (deviceNames.size() * 1e9 / rate);
+    for (int i = 0; i < threads; i++) {
+      List<String> share = new ArrayList<>();
+      for (int j = i; j < deviceNames.size(); j += threads) {
+        share.add(deviceNames.get(j));
+      }
+      MqttAsyncClient client = connect(brokerUrl, "TelemetryGenerator" + i);
+      publishers.add(new Publisher(i, client, share, period, jitter));
+    }
+  }
+
+  private MqttAsyncClient connect(String brokerUrl, String clientId) throws MqttException {
+    MqttAsyncClient client = new MqttAsyncClient(brokerUrl, clientId, new MemoryPersistence());
+    MqttConnectOptions connOpts = new MqttConnectOptions();
+    connOpts.setCleanSession(true);
+    connOpts.setMaxInflight(65535);
+    client.connect(connOpts).waitForCompletion();
+    return client;
+  }
+
+  public void start() {
+    for (Publisher publisher : publishers) {
+      publisher.start();
+    }
+  }
+
+  /**
+   * @return a message for the device with a fresh value for each readable resource
+   */
+  public String payload(String deviceName) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    JsonObject json = new JsonObject();
+    json.addProperty(IDENTIFIER_KEY, deviceName);
+    for (DeviceObject object : readable) {
+      json.addProperty(object.getName(), value(object.getProperties().getValue(), random));
+    }
+    return json.toString();
+  }
+
+  private String value(PropertyValue value, ThreadLocalRandom random) {
+    String type = value.getType().toLowerCase();
+    if (type.startsWith("f") || type.startsWith("i")) {
+      double low = parse(value.getMinimum(), 0);
+      double high = parse(value.getMaximum(), 100);
+      // some profiles give the bounds the wrong way round
+      double min = Math.min(low, high);
+      double max = Math.max(low, high);
+      double number = max > min ? random.nextDouble(min, max) : min;
+      return type.startsWith("f") ? String.valueOf(Math.round(number * 100) / 100.0)
+          : String.valueOf(Math.round(number));
+    } else if (type.startsWith("b")) {
+      return String.valueOf(random.nextBoolean());
+    }
+    String defaultValue = value.getDefaultValue();
+    return defaultValue == null || defaultValue.isEmpty() ? "ok" : defaultValue;
+  }
+
+  private static double parse(String number, double otherwise) {
+    try {
+      return number == null ? otherwise : Double.parseDouble(number);
+    } catch (NumberFormatException e) {
+      return otherwise;
+    }
+  }
+
+  // messages handed to the broker connection
+  public long getSent() {
+    return sent.sum();
+  }
+
+  // messages the connection refused
+  public long getFailed() {
+    return failed.sum();
+  }
+
+  // nanoseconds the most behind publisher was late by on its last message
+  public long getLag() {
+    long lag = 0;
+    for (Publisher publisher : publishers) {
+      lag = Math.max(lag, publisher.late);
+    }
+    return lag;
+  }
+
+  @Override
+  public synchronized void close() throws MqttException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+
+    for (Publisher publisher : publishers) {
+      publisher.shutdown();
+    }
+    for (Publisher publisher : publishers) {
+      try {
+        publisher.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      publisher.client.disconnect().waitForCompletion();
+      publisher.client.close();
+    }
+  }
+
+  private class Publisher extends Thread {
+    private final MqttAsyncClient client;
+    private final List<String> devices;
+    private final long period;
+    private final double jitter;
+    private volatile boolean running = true;
+    private volatile long late;
+
+    Publisher(int index, MqttAsyncClient client, List<String> devices, long period,
+        double jitter) {
+      super("telemetry-generator-" + index);
+      this.client = client;
+      this.devices = devices;
+      this.period = period;
+      this.jitter = jitter;
+      setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      // next due time and index of each device, earliest first
+      PriorityQueue<long[]> schedule =
+          new PriorityQueue<>(Math.max(1, devices.size()), (a, b) -> Long.compare(a[0], b[0]));
+      long start = System.nanoTime();
+      for (int i = 0; i < devices.size(); i++) {
+        schedule.add(new long[] {start + (long) (random.nextDouble() * period), i});
+      }
+
+      while (running && !schedule.isEmpty()) {
+        long[] next = schedule.poll();
+        long wait = next[0] - System.nanoTime();
+        if (wait > 0) {
+          LockSupport.parkNanos(wait);
+          if (!running) {
+            break;
+          }
+        }
+
+        late = Math.max(0, System.nanoTime() - next[0]);
+        publish(devices.get((int) next[1]));
+
+        double stretch = jitter > 0 ? 1 + jitter * (random.nextDouble() * 2 - 1) : 1;
+        next[0] += (long) (period * stretch);
+        schedule.add(next);
+      }
+    }
+
+    private void publish(String deviceName) {
+      MqttMessage message = new MqttMessage(payload(deviceName).getBytes());
+      message.setQos(qos);
+      try {
+        client.publish(topic, message);
+        sent.increment();
+      } catch (MqttException e) {
+        failed.increment();
+      }
+    }
+
+    void shutdown() {
+      running = false;
+      LockSupport.unpark(this);
+    }
+  }
+}
@@ -0,0 +1,226 @@
+/*******************************************************************************
+ * Copyright 2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry;
+
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.edgexfoundry.domain.LatencyStatus;
+import org.edgexfoundry.domain.core.Event;
+import org.edgexfoundry.domain.meta.Addressable;
+import org.edgexfoundry.domain.meta.DeviceProfile;
+import org.edgexfoundry.domain.meta.Protocol;
+import org.edgexfoundry.metrics.MetricsRegistry.Stage;
+import org.edgexfoundry.mqtt.messaging.IncomingListener;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/*
+ * Soak test of the ingest path without any outside service: a simulated fleet publishes telemetry
+ * shaped by the test profile to an embedded broker, the incoming listener takes it through the
+ * ingest lanes, object cache and transforms, and the events reach a stubbed core data. Throughput,
+ * backlog, loss and heap are reported at every interval.
+ *
+ * The defaults keep the run short enough for every build. Long runs set system properties, for
+ * example: mvn test -Dtest=TelemetrySoakTest -Dsoak.devices=10000 -Dsoak.rate=50000
+ * -Dsoak.duration=14400 -Dsoak.report=60 -Dsoak.publishers=8
+ */
+public class TelemetrySoakTest {
+
+  private static final String PROFILE = "MQTTTestDeviceProfile.yml";
+  private static final String DATA_TOPIC = "DataTopic";
+  private static final String USER = "soak";
+
+  private static final int DEVICES = Integer.getInteger("soak.devices", 100);
+  // messages per second from the whole fleet
+  private static final double RATE = Double.parseDouble(System.getProperty("soak.rate", "2000"));
+  // share of each device's interval it is early or late by
+  private static final double JITTER =
+      Double.parseDouble(System.getProperty("soak.jitter", "0.2"));
+  private static final int PUBLISHERS = Integer.getInteger("soak.publishers", 2);
+  // at QoS 0 the broker drops messages for a subscriber that falls behind, which counts as loss
+  private static final int QOS = Integer.getInteger("soak.qos", 1);
+  private static final int LANES = Integer.getInteger("soak.lanes", 0);
+  // seconds to publish for, and between reports
+  private static final long DURATION = Long.getLong("soak.duration", 5);
+  private static final long REPORT = Long.getLong("soak.report", 1);
+  // milliseconds without progress after publishing stops before the rest is counted as lost
+  private static final long SETTLE = Long.getLong("soak.settle", 5000);
+  // share of the messages that may be lost
+  private static final double MAX_LOSS =
+      Double.parseDouble(System.getProperty("soak.maxLoss", "0"));
+
+  private EmbeddedBroker broker;
+  private ServiceFixture service;
+  private IncomingListener listener;
+  private TelemetryGenerator generator;
+  private Set<String> deviceNames;
+
+  @Before
+  public void setup() throws Exception {
+    broker = new EmbeddedBroker();
+
+    service = new ServiceFixture();
+    service.startIngest(LANES, 10000);
+
+    DeviceProfile profile = ServiceFixture.loadProfile(PROFILE);
+    deviceNames = new HashSet<>();
+    List<String> names = new ArrayList<>(DEVICES);
+    for (int i = 0; i < DEVICES; i++) {
+      String name = "SoakDevice" + i;
+      Addressable addressable = new Addressable(name + "Addressable", Protocol.TCP,
+          broker.getAddress(), broker.getPort(), name + "Publisher", USER, USER,
+          "CommandTopic/" + name);
+      service.addDevice(name, profile, addressable);
+      deviceNames.add(name);
+      names.add(name);
+    }
+
+    listener = new IncomingListener();
+    ReflectionTestUtils.setField(listener, "incomingMqttBrokerProtocol", "tcp");
+    ReflectionTestUtils.setField(listener, "incomingMqttBroker", broker.getAddress());
+    ReflectionTestUtils.setField(listener, "incomingMqttBrokerPort",
+        String.valueOf(broker.getPort()));
+    ReflectionTestUtils.setField(listener, "incomingMqttClientId", "IncomingDataSubscriber");
+    ReflectionTestUtils.setField(listener, "incomingMqttTopic", DATA_TOPIC);
+    ReflectionTestUtils.setField(listener, "incomingMqttQos", QOS);
+    ReflectionTestUtils.setField(listener, "incomingMqttUser", USER);
+    ReflectionTestUtils.setField(listener, "incomingMqttPassword", USER);
+    ReflectionTestUtils.setField(listener, "incomingMqttKeepAlive", 3600);
+    ReflectionTestUtils.setField(listener, "incomingMqttCleanSession", true);
+    ReflectionTestUtils.setField(listener, "incomingMqttPersistenceDir",
+        System.getProperty("java.io.tmpdir"));
+    ReflectionTestUtils.setField(listener, "reconnectInitialDelay", 1000L);
+    ReflectionTestUtils.setField(listener, "reconnectMaxDelay", 1000L);
+    ReflectionTestUtils.setField(listener, "processor", service.getIncoming());
+    ReflectionTestUtils.setField(listener, "metrics", service.getMetrics());
+    listener.init();
+
+    generator = new TelemetryGenerator(broker.getUrl(), DATA_TOPIC, QOS, profile, names, RATE,
+        JITTER, PUBLISHERS);
+  }
+
+  @After
+  public void cleanup() throws Exception {
+    generator.close();
+    listener.cleanup();
+    service.close();
+    broker.close();
+  }
+
+  @Test
+  public void testSustainedIngest() throws Exception {
+    // keep the events of the first interval to check what reaches core data
+    service.setRecording(true);
+    long start = System.nanoTime();
+    long end = start + DURATION * 1000000000L;
+    generator.start();
+
+    long lastSent = 0;
+    long lastDelivered = 0;
+    long lastReport = start;
+    long now;
+    while ((now = System.nanoTime()) < end) {
+      Thread.sleep(Math.min(REPORT * 1000, Math.max(1, (end - now) / 1000000)));
+      service.setRecording(false);
+
+      now = System.nanoTime();
+      long sent = generator.getSent();
+      long delivered = service.getEventCount();
+      double seconds = (now - lastReport) / 1e9;
+      report(now - start, sent, delivered, (sent - lastSent) / seconds,
+          (delivered - lastDelivered) / seconds);
+      lastSent = sent;
+      lastDelivered = delivered;
+      lastReport = now;
+    }
+    generator.close();
+
+    // let the backlog drain until it stops moving
+    long sent = generator.getSent();
+    long delivered = service.getEventCount();
+    long progress = System.currentTimeMillis();
+    while (delivered < sent && System.currentTimeMillis() - progress < SETTLE) {
+      Thread.sleep(100);
+      long count = service.getEventCount();
+      if (count > delivered) {
+        delivered = count;
+        progress = System.currentTimeMillis();
+      }
+    }
+
+    double seconds = DURATION;
+    long lost = sent - delivered;
+    LatencyStatus latency = service.getMetrics().getStatus().getStages().stream()
+        .filter(stage -> stage.getName().equals(Stage.END_TO_END.name().toLowerCase()))
+        .findAny().orElse(null);
+    System.out.println(String.format(
+        "%d devices at %.0f messages/s, jitter %.2f, qos %d for %d s: %d sent, %d refused, "
+            + "%d delivered, %d lost (%.4f%%), %.1f delivered/s%s",
+        DEVICES, RATE, JITTER, QOS, DURATION, sent, generator.getFailed(), delivered, lost,
+        sent > 0 ? 100.0 * lost / sent : 0, delivered / seconds,
+        latency == null ? ""
+            : String.format(", in service ms p50 %.3f p99 %.3f max %.3f",
+                latency.getP50() / 1000, latency.getP99() / 1000, latency.getMax() / 1000)));
+
+    assertTrue("nothing was delivered", delivered > 0);
+    assertTrue("lost " + lost + " of " + sent + " messages", lost <= sent * MAX_LOSS);
+
+    for (Event event : service.getRecorded()) {
+      assertTrue("event for an unknown device " + event.getDevice(),
+          deviceNames.contains(event.getDevice()));
+      assertTrue("event without readings", !event.getReadings().isEmpty());
+    }
+  }
+
+  private void report(long elapsed, long sent, long delivered, double sendRate,
+      double deliveryRate) {
+    System.out.println(String.format(
+        "%6d s: sent %d, delivered %d, backlog %d, queued %d, %.0f sent/s, %.0f delivered/s, "
+            + "publisher lag %.1f ms, heap %d MB, after gc %d MB",
+        elapsed / 1000000000L, sent, delivered, sent - delivered,
+        service.getScheduler().getQueueDepth(), sendRate, deliveryRate,
+        generator.getLag() / 1e6, usedHeap() >> 20, heapAfterGc() >> 20));
+  }
+
+  private static long usedHeap() {
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+
+  // heap still in use after the last collection of each pool, which grows with a leak
+  private static long heapAfterGc() {
+    long used = 0;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getCollectionUsage() != null
+          && pool.getType() == MemoryType.HEAP) {
+        used += pool.getCollectionUsage().getUsed();
+      }
+    }
+    return used;
+  }
+}
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright 2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.edgexfoundry.domain.CompiledProfile;
+import org.edgexfoundry.domain.meta.Device;
+import org.edgexfoundry.domain.meta.DeviceProfile;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class DeviceStoreTest {
+
+  private DeviceStore devices;
+  private ProfileStore profiles;
+
+  @Before
+  public void setup() {
+    devices = new DeviceStore();
+    profiles = new ProfileStore();
+    ReflectionTestUtils.setField(devices, "profiles", profiles);
+  }
+
+  // bind and register the device, as adding it once metadata has it does
+  private Device register(String id, String name) {
+    Device device = new Device();
+    device.setId(id);
+    device.setName(name);
+    profiles.addDevice(device, new CompiledProfile(new DeviceProfile(), Collections.emptyMap(),
+        Collections.emptyMap(), Collections.emptyMap()));
+    ReflectionTestUtils.invokeMethod(devices, "register", device);
+    return device;
+  }
+
+  @Test
+  public void testRename() {
+    Device original = register("1", "Sensor");
+    Map<String, Device> before = devices.getDevices();
+
+    Device renamed = register("1", "Sensor-2");
+
+    assertNull(devices.getDevice("Sensor"));
+    assertSame(renamed, devices.getDevice("Sensor-2"));
+    assertSame(renamed, devices.getDeviceById("1"));
+    assertEquals(Collections.singleton("Sensor-2"), devices.getDevices().keySet());
+    // the tables bound under the old name go with it
+    assertNull(profiles.getProfile(original));
+    assertNotNull(profiles.getProfile(renamed));
+    // a snapshot taken before is not changed
+    assertEquals(Collections.singletonMap("Sensor", original), before);
+  }
+
+  @Test
+  public void testIdChange() {
+    register("1", "Sensor");
+    Device replaced = register("2", "Sensor");
+
+    assertNull(devices.getDeviceById("1"));
+    assertSame(replaced, devices.getDeviceById("2"));
+    assertSame(replaced, devices.getDevice("Sensor"));
+    assertEquals(1, devices.getDevices().size());
+    assertNotNull(profiles.getProfile(replaced));
+  }
+
+  @Test
+  public void testRenameOntoAnotherDevice() {
+    register("1", "Sensor");
+    register("2", "Pump");
+    Device renamed = register("1", "Pump");
+
+    // the device that had the name loses it, and its id no longer resolves
+    assertNull(devices.getDevice("Sensor"));
+    assertNull(devices.getDeviceById("2"));
+    assertSame(renamed, devices.getDeviceById("1"));
+    assertSame(renamed, devices.getDevice("Pump"));
+    assertEquals(1, devices.getDevices().size());
+  }
+}
@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright 2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.data;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.edgexfoundry.domain.core.Reading;
+import org.edgexfoundry.domain.meta.Device;
+import org.edgexfoundry.domain.meta.DeviceProfile;
+import org.edgexfoundry.domain.meta.ResourceOperation;
+import org.edgexfoundry.handler.CoreDataMessageHandler;
+import org.edgexfoundry.metrics.MetricsRegistry;
+import org.edgexfoundry.mqtt.ObjectTransform;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.yaml.snakeyaml.Yaml;
+
+/*
+ * Throughput of the object cache with 64 devices reading and writing concurrently. Metadata and
+ * core data are not needed, the stores are wired by hand from the test device profile.
+ *
+ * Run from the project root with: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.edgexfoundry.data.ObjectStoreBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ObjectStoreBenchmark {
+
+  static final int DEVICES = 64;
+  private static final String PROFILE = "MQTTTestDeviceProfile.yml";
+  private static final String OBJECT = "randnum";
+  private static final int VALUES = 1024;
+
+  private ObjectStore store;
+  private Device[] devices;
+  private ResourceOperation operation;
+  private String[] values;
+
+  @State(Scope.Thread)
+  public static class DeviceState {
+    private static final AtomicInteger next = new AtomicInteger();
+    int device;
+    int value;
+
+    @Setup
+    public void setup() {
+      device = next.getAndIncrement() % DEVICES;
+    }
+  }
+
+  @Setup
+  public void setup() throws IOException {
+    DeviceProfile profile;
+    try (InputStream input = new FileInputStream(new File(PROFILE))) {
+      profile = new Yaml().loadAs(input, DeviceProfile.class);
+    }
+
+    ProfileStore profiles = new ProfileStore();
+    devices = new Device[DEVICES];
+    for (int i = 0; i < DEVICES; i++) {
+      Device device = new Device();
+      device.setName("BenchmarkDevice" + i);
+      device.setId("benchmark-device-" + i);
+      device.setProfile(profile);
+      profiles.addDevice(device);
+      devices[i] = device;
+    }
+
+    store = new ObjectStore();
+    ObjectTransform transform = new ObjectTransform();
+    ReflectionTestUtils.setField(transform, "objectCache", store);
+    ReflectionTestUtils.setField(store, "profiles", profiles);
+    ReflectionTestUtils.setField(store, "transform", transform);
+    ReflectionTestUtils.setField(store, "processor", new CoreDataMessageHandler());
+    ReflectionTestUtils.setField(store, "cacheSize", 16);
+    ReflectionTestUtils.setField(store, "metrics", new MetricsRegistry());
+    store.setTransformData(true);
+
+    operation = profiles.getCommands().get(devices[0].getName()).get(OBJECT).get("get").get(0);
+
+    values = new String[VALUES];
+    for (int i = 0; i < VALUES; i++) {
+      values[i] = String.valueOf(Math.random() * 10000);
+    }
+
+    // make sure every device has something to read
+    for (Device device : devices) {
+      store.put(device, operation, values[0]);
+    }
+  }
+
+  @Benchmark
+  @Threads(DEVICES)
+  public void put(DeviceState state) {
+    store.put(devices[state.device], operation, values[state.value++ & (VALUES - 1)]);
+  }
+
+  @Benchmark
+  @Threads(DEVICES)
+  public String get(DeviceState state) {
+    return store.get(devices[state.device].getId(), OBJECT);
+  }
+
+  @Benchmark
+  @Threads(DEVICES)
+  public List<Reading> getResponses(DeviceState state) {
+    return store.getResponses(devices[state.device], operation);
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(DEVICES / 2)
+  public void mixedPut(DeviceState state) {
+    store.put(devices[state.device], operation, values[state.value++ & (VALUES - 1)]);
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(DEVICES / 2)
+  public String mixedGet(DeviceState state) {
+    return store.get(devices[state.device].getId(), OBJECT);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options options =
+        new OptionsBuilder().include(ObjectStoreBenchmark.class.getSimpleName()).build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright 2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.edgexfoundry.ClientStubs;
+import org.edgexfoundry.ServiceFixture;
+import org.edgexfoundry.controller.ValueDescriptorClient;
+import org.edgexfoundry.domain.common.IoTType;
+import org.edgexfoundry.domain.common.ValueDescriptor;
+import org.edgexfoundry.domain.meta.Device;
+import org.edgexfoundry.domain.meta.DeviceObject;
+import org.edgexfoundry.domain.meta.DeviceProfile;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class ProfileStoreTest {
+
+  private static final String PROFILE = "MQTTTestDeviceProfile.yml";
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testSummaryDescriptors() throws IOException {
+    // descriptors added to metadata by name
+    Map<String, ValueDescriptor> added = new HashMap<>();
+    ProfileStore profiles = new ProfileStore();
+    ReflectionTestUtils.setField(profiles, "valueDescriptorClient",
+        ClientStubs.stub(ValueDescriptorClient.class, (method, args) -> {
+          if (method.getName().equals("add")) {
+            ValueDescriptor descriptor = (ValueDescriptor) args[0];
+            added.put(descriptor.getName(), descriptor);
+            return descriptor.getName();
+          }
+          return null;
+        }));
+
+    DeviceProfile profile = ServiceFixture.loadProfile(PROFILE);
+    for (DeviceObject object : profile.getDeviceResources()) {
+      if (object.getName().equals("randnum")) {
+        ((Map<String, Object>) object.getAttributes()).put("aggregate", "1000");
+      }
+    }
+    Device device = new Device();
+    device.setName("Busy");
+    device.setProfile(profile);
+    profiles.addDevice(device);
+
+    // the window minimum and maximum are values of the float object, with its range
+    ValueDescriptor value = added.get("randnum");
+    for (String name : new String[] {"randnum_min", "randnum_max"}) {
+      assertEquals(IoTType.F, added.get(name).getType());
+      assertEquals(value.getMin(), added.get(name).getMin());
+      assertEquals(value.getMax(), added.get(name).getMax());
+    }
+
+    assertEquals(IoTType.F, added.get("randnum_avg").getType());
+    assertNull(added.get("randnum_avg").getMin());
+    assertNull(added.get("randnum_avg").getMax());
+    assertEquals(IoTType.I, added.get("randnum_count").getType());
+    assertNull(added.get("randnum_count").getMin());
+    assertNull(added.get("randnum_count").getMax());
+  }
+}
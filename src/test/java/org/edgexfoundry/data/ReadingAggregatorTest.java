@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright 2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.edgexfoundry.data.ReadingWindow.Summary;
+import org.edgexfoundry.domain.Aggregation;
+import org.edgexfoundry.domain.MqttAttribute;
+import org.edgexfoundry.domain.ReadingValue;
+import org.junit.Test;
+
+public class ReadingAggregatorTest {
+
+  private static Aggregation aggregation(String window, String slide) {
+    Map<String, String> map = new HashMap<>();
+    map.put("name", "randnum");
+    map.put("aggregate", window);
+    if (slide != null) {
+      map.put("aggregateSlide", slide);
+    }
+    return Aggregation.compile(new MqttAttribute(map));
+  }
+
+  @Test
+  public void testCompile() {
+    assertEquals(null, Aggregation.compile(new MqttAttribute(new HashMap<>())));
+    assertEquals(1, aggregation("1000", null).getPanes());
+    assertEquals(4, aggregation("1000", "250").getPanes());
+    // rounded up to whole slides
+    assertEquals(1200, aggregation("1000", "300").getWindow());
+  }
+
+  @Test
+  public void testTumbling() {
+    ReadingWindow window = new ReadingWindow(aggregation("1000", null));
+    for (int i = 0; i < 10; i++) {
+      assertTrue(window.add(ReadingValue.of((long) i), 10000 + i * 100).isEmpty());
+    }
+
+    List<Summary> summaries = window.add(ReadingValue.of(100L), 11000);
+    assertEquals(1, summaries.size());
+    Summary summary = summaries.get(0);
+    assertEquals(11000, summary.time);
+    assertEquals(10, summary.count);
+    assertEquals("0", summary.min.toString());
+    assertEquals("9", summary.max.toString());
+    assertEquals(4.5, summary.average, 0);
+
+    // nothing more until the next window is over
+    assertTrue(window.close(11999).isEmpty());
+    summaries = window.close(12000);
+    assertEquals(1, summaries.size());
+    assertEquals(1, summaries.get(0).count);
+    assertTrue(window.close(20000).isEmpty());
+  }
+
+  @Test
+  public void testSliding() {
+    ReadingWindow window = new ReadingWindow(aggregation("1000", "500"));
+    assertTrue(window.add(ReadingValue.of(1.5), 10000).isEmpty());
+
+    // the window ending at 10500 is closed by the next value
+    List<Summary> summaries = window.add(ReadingValue.of(2.5), 10500);
+    assertEquals(1, summaries.size());
+    assertEquals(10500, summaries.get(0).time);
+    assertEquals(1, summaries.get(0).count);
+    assertEquals("1.5", summaries.get(0).max.toString());
+
+    // those ending at 11000 and 11500 overlap it by half
+    summaries = window.close(12000);
+    assertEquals(2, summaries.size());
+    assertEquals(2, summaries.get(0).count);
+    assertEquals(2.0, summaries.get(0).average, 0);
+    assertEquals(1, summaries.get(1).count);
+    assertEquals("2.5", summaries.get(1).min.toString());
+  }
+
+  @Test
+  public void testIntegralPerWindow() {
+    ReadingWindow window = new ReadingWindow(aggregation("1000", null));
+    window.add(ReadingValue.of(1.5), 10000);
+    List<Summary> summaries = window.add(ReadingValue.of(2L), 11000);
+    assertEquals("1.5", summaries.get(0).min.toString());
+
+    // a window of integers is summarised as integers whatever came before it
+    summaries = window.close(12000);
+    assertEquals("2", summaries.get(0).min.toString());
+    assertEquals("2", summaries.get(0).max.toString());
+  }
+
+  @Test
+  public void testCloseAll() {
+    ReadingWindow window = new ReadingWindow(aggregation("1000", "500"));
+    assertTrue(window.closeAll().isEmpty());
+    window.add(ReadingValue.of(3L), 10000);
+
+    // both windows holding the value, though neither is over yet
+    List<Summary> summaries = window.closeAll();
+    assertEquals(2, summaries.size());
+    assertEquals(10500, summaries.get(0).time);
+    assertEquals(11000, summaries.get(1).time);
+    assertTrue(window.closeAll().isEmpty());
+  }
+}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright 2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.edgexfoundry.domain.ReadingValue;
+import org.junit.Test;
+
+public class ReadingHistoryTest {
+
+  @Test
+  public void testNewestFirst() {
+    ReadingHistory history = new ReadingHistory(3);
+    assertNull(history.latestValue());
+    for (long i = 1; i <= 5; i++) {
+      history.add(ReadingValue.of(i));
+    }
+    List<ReadingValue> values = history.latestValues(10);
+    assertEquals(3, values.size());
+    assertEquals(5, values.get(0).getLong());
+    assertEquals(3, values.get(2).getLong());
+    assertArrayEquals(new double[] {5, 4}, history.window(2), 0);
+  }
+
+  @Test
+  public void testConcurrentReader() throws InterruptedException {
+    readWhileWriting(1);
+    readWhileWriting(4);
+  }
+
+  // a reader racing one writer always sees a value, and never one older than it saw before
+  private void readWhileWriting(int capacity) throws InterruptedException {
+    ReadingHistory history = new ReadingHistory(capacity);
+    history.add(ReadingValue.of(0L));
+    AtomicBoolean done = new AtomicBoolean();
+    AtomicReference<String> failure = new AtomicReference<>();
+
+    Thread reader = new Thread(() -> {
+      long last = 0;
+      while (!done.get() && failure.get() == null) {
+        ReadingValue value = history.latestValue();
+        if (value == null) {
+          failure.set("no value");
+        } else if (value.getLong() < last) {
+          failure.set(value.getLong() + " after " + last);
+        } else {
+          last = value.getLong();
+        }
+        List<ReadingValue> values = history.latestValues(capacity);
+        for (int i = 1; i < values.size(); i++) {
+          if (values.get(i).getLong() >= values.get(i - 1).getLong()) {
+            failure.set("out of order " + values);
+          }
+        }
+      }
+    });
+    reader.start();
+
+    for (long i = 1; i <= 200000; i++) {
+      history.add(ReadingValue.of(i));
+    }
+    done.set(true);
+    reader.join(10000);
+
+    assertNull(failure.get(), failure.get());
+    assertNotNull(history.latestValue());
+    assertEquals(200000, history.latestValue().getLong());
+    assertTrue(history.latestValues(capacity).size() == capacity);
+  }
+}
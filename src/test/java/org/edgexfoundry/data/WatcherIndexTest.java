@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright 2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.edgexfoundry.domain.CompiledWatcher;
+import org.edgexfoundry.domain.meta.ProvisionWatcher;
+import org.junit.Test;
+
+public class WatcherIndexTest {
+
+  // regex and the literal prefix every full match must start with
+  private static final String[][] PREFIXES = {
+      {"sensor", "sensor"},
+      {"sensor-.*", "sensor-"},
+      {"sensor\\.1", "sensor"},
+      {"\\Qsensor\\E.*", ""},
+      {"\\d+", ""},
+      {"^sensor", ""},
+      {"sensor$", "sensor"},
+      {"sensor|pump", ""},
+      {"(sensor|pump)-1", ""},
+      {"sensors?", "sensor"},
+      {"sensors*", "sensor"},
+      {"sensors{2}", "sensor"},
+      {"sensors+", "sensors"},
+      {"[sS]ensor", ""},
+      {"s.nsor", "s"},
+      {"", ""}};
+
+  private static final String[] NAMES = {"sensor", "sensors", "sensorss", "sensor-1", "sensor.1",
+      "sensorx1", "Sensor", "pump", "pump-1", "sensor-1x", "123", "s", "snsor", "", "xsensor"};
+
+  @Test
+  public void testLiteralPrefix() {
+    for (String[] row : PREFIXES) {
+      assertEquals(row[0], row[1], CompiledWatcher.literalPrefix(row[0]));
+    }
+  }
+
+  @Test
+  public void testPrefixIsSound() {
+    // every name a regex fully matches starts with the prefix derived for it
+    for (String[] row : PREFIXES) {
+      Pattern pattern = Pattern.compile(row[0]);
+      for (String name : NAMES) {
+        if (pattern.matcher(name).matches()) {
+          assertEquals(row[0] + " " + name, true, name.startsWith(row[1]));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testMatchAgreesWithRegex() {
+    List<ProvisionWatcher> watchers = new ArrayList<>();
+    for (String[] row : PREFIXES) {
+      watchers.add(watcher(row[0], Collections.singletonMap("name", row[0])));
+    }
+    // two identifiers, indexed by the longer prefix
+    Map<String, String> identifiers = new HashMap<>();
+    identifiers.put("name", "s.*");
+    identifiers.put("address", "10\\.0\\.0\\.\\d+");
+    watchers.add(watcher("both", identifiers));
+
+    // every rotation so that each watcher gets a turn at being first in store order
+    for (int shift = 0; shift < watchers.size(); shift++) {
+      List<ProvisionWatcher> ordered = new ArrayList<>(watchers);
+      Collections.rotate(ordered, shift);
+      WatcherIndex index = index(ordered);
+
+      for (String name : NAMES) {
+        for (String address : new String[] {"10.0.0.7", "10.0.0.x"}) {
+          Map<String, String> device = new HashMap<>();
+          device.put("name", name);
+          device.put("address", address);
+          assertSame(name + " " + address, linear(ordered, device), index.match(device));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testMissingField() {
+    List<ProvisionWatcher> watchers = new ArrayList<>();
+    watchers.add(watcher("sensor", Collections.singletonMap("name", "sensor.*")));
+    assertEquals(null, index(watchers).match(Collections.singletonMap("address", "sensor")));
+  }
+
+  private WatcherIndex index(List<ProvisionWatcher> watchers) {
+    List<CompiledWatcher> compiled = new ArrayList<>();
+    for (ProvisionWatcher watcher : watchers) {
+      compiled.add(new CompiledWatcher(watcher));
+    }
+    return new WatcherIndex(compiled);
+  }
+
+  // the scan the index replaced: first watcher in order whose identifiers all fully match
+  private ProvisionWatcher linear(List<ProvisionWatcher> watchers, Map<String, String> device) {
+    for (ProvisionWatcher watcher : watchers) {
+      boolean matched = true;
+      for (Map.Entry<String, String> identifier : watcher.getIdentifiers().entrySet()) {
+        String value = device.get(identifier.getKey());
+        if (value == null || !Pattern.matches(identifier.getValue(), value)) {
+          matched = false;
+        }
+      }
+      if (matched) {
+        return watcher;
+      }
+    }
+    return null;
+  }
+
+  private ProvisionWatcher watcher(String name, Map<String, String> identifiers) {
+    ProvisionWatcher watcher = new ProvisionWatcher();
+    watcher.setName(name);
+    watcher.setIdentifiers(new HashMap<>(identifiers));
+    return watcher;
+  }
+}
@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright 2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.edgexfoundry.domain.meta.DeviceProfile;
+import org.edgexfoundry.domain.meta.ProvisionWatcher;
+import org.junit.Test;
+
+public class WatcherStoreTest {
+
+  private static final Map<String, String> SENSOR = Collections.singletonMap("name", "sensor");
+  private static final Map<String, String> PUMP = Collections.singletonMap("name", "pump");
+
+  @Test
+  public void testSnapshotUnchangedByUpdate() {
+    WatcherStore store = new WatcherStore();
+    ProvisionWatcher first = watcher("1", "first", "sensor.*");
+    ProvisionWatcher second = watcher("2", "second", "pump.*");
+    store.add(first);
+    store.add(second);
+
+    List<ProvisionWatcher> before = store.getWatchers();
+    WatcherIndex index = store.getIndex();
+
+    ProvisionWatcher updated = watcher("2", "second", "valve.*");
+    store.update(updated);
+
+    // readers holding the old snapshot keep seeing the old watcher and its patterns
+    assertSame(second, before.get(1));
+    assertSame(second, index.match(PUMP));
+    assertSame(first, index.match(SENSOR));
+
+    assertSame(updated, store.getWatchers().get(1));
+    assertSame(updated, store.getWatcher("2"));
+    assertNull(store.getIndex().match(PUMP));
+    assertEquals(2, before.size());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testSnapshotUnmodifiable() {
+    WatcherStore store = new WatcherStore();
+    store.add(watcher("1", "first", "sensor.*"));
+    store.getWatchers().clear();
+  }
+
+  @Test
+  public void testReaderDuringUpdates() throws InterruptedException {
+    WatcherStore store = new WatcherStore();
+    store.add(watcher("1", "first", "sensor.*"));
+    store.add(watcher("2", "second", "pump.*"));
+    AtomicBoolean done = new AtomicBoolean();
+    AtomicReference<String> failure = new AtomicReference<>();
+
+    Thread reader = new Thread(() -> {
+      while (!done.get() && failure.get() == null) {
+        List<ProvisionWatcher> watchers = store.getWatchers();
+        int count = 0;
+        for (ProvisionWatcher watcher : watchers) {
+          if (watcher.getId() == null) {
+            failure.set("partial watcher");
+          }
+          count++;
+        }
+        // both versions of the updated watcher match the device, one of them always does
+        if (count != 2 || store.getIndex().match(PUMP) == null) {
+          failure.set("saw " + watchers);
+        }
+      }
+    });
+    reader.start();
+
+    for (int i = 0; i < 20000; i++) {
+      store.update(watcher("2", "second", i % 2 == 0 ? "pump" : "pump.*"));
+    }
+    done.set(true);
+    reader.join(10000);
+
+    assertNull(failure.get(), failure.get());
+  }
+
+  private ProvisionWatcher watcher(String id, String name, String pattern) {
+    DeviceProfile profile = new DeviceProfile();
+    profile.setId("profile");
+    profile.setName("profile");
+    ProvisionWatcher watcher = new ProvisionWatcher();
+    watcher.setId(id);
+    watcher.setName(name);
+    watcher.setProfile(profile);
+    watcher.setIdentifiers(Collections.singletonMap("name", pattern));
+    return watcher;
+  }
+}
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright 2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.domain;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class ReportFilterTest {
+
+  // attributes as they are read from a profile, every value a string
+  private static ReportFilter filter(String... attributes) {
+    Map<String, String> map = new HashMap<>();
+    map.put("name", "randnum");
+    for (int i = 0; i < attributes.length; i += 2) {
+      map.put(attributes[i], attributes[i + 1]);
+    }
+    return ReportFilter.compile(new MqttAttribute(map));
+  }
+
+  private static boolean passes(ReportFilter filter, double last, double value, long elapsed) {
+    return filter.passes(ReadingValue.of(last), 0, ReadingValue.of(value), elapsed);
+  }
+
+  @Test
+  public void testNoFilter() {
+    assertNull(filter());
+    assertNull(filter("maxInterval", "60000"));
+  }
+
+  @Test
+  public void testFirstValueReported() {
+    assertTrue(filter("onChange", "true").passes(null, 0, ReadingValue.of(1L), 0));
+  }
+
+  @Test
+  public void testOnChange() {
+    ReportFilter filter = filter("onChange", "true");
+    assertFalse(passes(filter, 20.5, 20.5, 1000));
+    assertTrue(passes(filter, 20.5, 20.6, 1000));
+    assertFalse(filter.passes(ReadingValue.of("on"), 0, ReadingValue.of("on"), 1000));
+    assertTrue(filter.passes(ReadingValue.of("on"), 0, ReadingValue.of("off"), 1000));
+  }
+
+  @Test
+  public void testDeadband() {
+    ReportFilter filter = filter("deadband", "0.5");
+    assertFalse(passes(filter, 20, 20.5, 1000));
+    assertFalse(passes(filter, 20, 19.5, 1000));
+    assertTrue(passes(filter, 20, 20.6, 1000));
+    assertTrue(passes(filter, 20, 19.4, 1000));
+  }
+
+  @Test
+  public void testDeadbandPercent() {
+    ReportFilter filter = filter("deadbandPercent", "10");
+    assertFalse(passes(filter, 200, 219, 1000));
+    assertTrue(passes(filter, 200, 221, 1000));
+    assertTrue(passes(filter, -200, -179, 1000));
+
+    // the wider of the two bands
+    filter = filter("deadband", "5", "deadbandPercent", "1");
+    assertFalse(passes(filter, 200, 204, 1000));
+    assertTrue(passes(filter, 200, 206, 1000));
+  }
+
+  @Test
+  public void testIntervals() {
+    ReportFilter filter = filter("deadband", "1", "minInterval", "1000", "maxInterval", "60000");
+    // too soon, however far it moved
+    assertFalse(passes(filter, 20, 50, 999));
+    assertTrue(passes(filter, 20, 50, 1000));
+    // unchanged but due
+    assertFalse(passes(filter, 20, 20, 59999));
+    assertTrue(passes(filter, 20, 20, 60000));
+
+    // rate limit alone
+    filter = filter("minInterval", "1000");
+    assertFalse(passes(filter, 20, 20, 500));
+    assertTrue(passes(filter, 20, 20, 1000));
+  }
+}
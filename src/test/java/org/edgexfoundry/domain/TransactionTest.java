@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright 2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.domain;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import org.edgexfoundry.domain.core.Reading;
+import org.junit.Test;
+
+public class TransactionTest {
+
+  private static Reading reading(String name, String value) {
+    Reading reading = new Reading();
+    reading.setName(name);
+    reading.setValue(value);
+    return reading;
+  }
+
+  @Test
+  public void testCachedReadingsKeptApart() {
+    Transaction transaction = new Transaction();
+    String queried = transaction.newOpId();
+    String cached = transaction.newOpId();
+
+    transaction.finishCachedOp(cached, Collections.singletonList(reading("randnum", "42.5")));
+    assertFalse(transaction.isFinished());
+    transaction.finishOp(queried, Collections.singletonList(reading("ping", "pong")));
+    assertTrue(transaction.isFinished());
+
+    // only the queried reading is to be sent to core data
+    assertEquals(1, transaction.getReadings().size());
+    assertEquals("ping", transaction.getReadings().get(0).getName());
+    assertEquals(1, transaction.getCachedReadings().size());
+    assertEquals("randnum", transaction.getCachedReadings().get(0).getName());
+  }
+}
@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * Copyright 2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.handler;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class CachedCommandTest {
+
+  @Test
+  public void testCommandMaxAge() {
+    MqttHandler handler = new MqttHandler();
+    MockEnvironment environment = new MockEnvironment();
+    ReflectionTestUtils.setField(handler, "environment", environment);
+    assertEquals(0, handler.getCacheMaxAge("randnum"));
+
+    environment.setProperty("command.cache.maxage.randnum", "5000");
+    ReflectionTestUtils.setField(handler, "cacheMaxAge", 1000L);
+    assertEquals(5000, handler.getCacheMaxAge("Randnum"));
+    assertEquals(1000, handler.getCacheMaxAge("ping"));
+  }
+}
@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright 2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.edgexfoundry.metrics.MetricsRegistry;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class CallbackQueueTest {
+
+  private CallbackQueue queue;
+
+  private CallbackQueue start(int threads) {
+    queue = new CallbackQueue();
+    ReflectionTestUtils.setField(queue, "metrics", new MetricsRegistry());
+    ReflectionTestUtils.setField(queue, "threads", threads);
+    queue.init();
+    return queue;
+  }
+
+  @After
+  public void cleanup() {
+    if (queue != null) {
+      queue.cleanup();
+    }
+  }
+
+  // wait for the work queued for the key so far, and whatever it replaces, to be applied
+  private void drain(String key) throws InterruptedException {
+    CountDownLatch done = new CountDownLatch(1);
+    queue.submit(key, done::countDown);
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testCoalescedWhileRunning() throws InterruptedException {
+    start(1);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    List<Integer> applied = new CopyOnWriteArrayList<>();
+
+    queue.submit("device", () -> {
+      started.countDown();
+      try {
+        release.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      applied.add(0);
+    });
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    // three updates while the first runs, only the latest is applied after it
+    for (int i = 1; i <= 3; i++) {
+      int update = i;
+      queue.submit("device", () -> applied.add(update));
+    }
+    assertEquals(1, queue.getQueueDepth());
+    release.countDown();
+
+    CountDownLatch done = new CountDownLatch(1);
+    queue.submit("other", done::countDown);
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    while (queue.getCompleted() < 3) {
+      Thread.sleep(1);
+    }
+
+    assertEquals(Arrays.asList(0, 3), applied);
+    assertEquals(2, queue.getCoalesced());
+    assertEquals(5, queue.getSubmitted());
+  }
+
+  @Test
+  public void testPerKeyOrder() throws InterruptedException {
+    start(4);
+    int keys = 8;
+    List<List<Integer>> applied = new ArrayList<>();
+    List<AtomicBoolean> active = new ArrayList<>();
+    AtomicReference<String> failure = new AtomicReference<>();
+    for (int k = 0; k < keys; k++) {
+      applied.add(new CopyOnWriteArrayList<>());
+      active.add(new AtomicBoolean());
+    }
+
+    CountDownLatch last = new CountDownLatch(keys);
+    for (int i = 0; i < 2000; i++) {
+      int k = i % keys;
+      int sequence = i;
+      queue.submit("device" + k, () -> {
+        if (!active.get(k).compareAndSet(false, true)) {
+          failure.set("device" + k + " ran concurrently");
+        }
+        applied.get(k).add(sequence);
+        active.get(k).set(false);
+        if (sequence >= 2000 - keys) {
+          last.countDown();
+        }
+      });
+    }
+    assertTrue(last.await(5, TimeUnit.SECONDS));
+
+    assertNull(failure.get(), failure.get());
+    for (int k = 0; k < keys; k++) {
+      List<Integer> sequences = applied.get(k);
+      // updates may be skipped when coalesced, never reordered, and the last is always applied
+      for (int i = 1; i < sequences.size(); i++) {
+        assertTrue(sequences.toString(), sequences.get(i) > sequences.get(i - 1));
+      }
+      assertEquals(2000 - keys + k, (int) sequences.get(sequences.size() - 1));
+    }
+  }
+
+  @Test
+  public void testSubmittedDuringRunNotLost() throws InterruptedException {
+    start(2);
+    CountDownLatch resubmitted = new CountDownLatch(1);
+    CountDownLatch other = new CountDownLatch(1);
+
+    queue.submit("device", () -> {
+      // new work for the same and another device arriving while this one runs
+      queue.submit("device", resubmitted::countDown);
+      queue.submit("other", other::countDown);
+    });
+
+    assertTrue(resubmitted.await(5, TimeUnit.SECONDS));
+    assertTrue(other.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testFailedWorkKeepsWorker() throws InterruptedException {
+    start(1);
+    queue.submit("device", () -> {
+      throw new IllegalStateException("metadata down");
+    });
+    drain("device");
+    drain("other");
+  }
+}
@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * Copyright 2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import javax.ws.rs.NotFoundException;
+
+import org.edgexfoundry.ClientStubs;
+import org.edgexfoundry.controller.DeviceClient;
+import org.edgexfoundry.data.DeviceStore;
+import org.edgexfoundry.domain.meta.Device;
+import org.edgexfoundry.domain.meta.OperatingState;
+import org.edgexfoundry.metrics.MetricsRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class LastConnectedTrackerTest {
+
+  private final Map<String, Device> managed = new ConcurrentHashMap<>();
+  private MetricsRegistry metrics;
+  private LastConnectedTracker tracker;
+
+  // device id to the last connected times sent
+  private final Map<String, Long> updates = new ConcurrentHashMap<>();
+  private final AtomicInteger updateCount = new AtomicInteger();
+  private final AtomicInteger enableCount = new AtomicInteger();
+  // thrown by metadata while set
+  private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+  private Consumer<Device> removed;
+  private final CountDownLatch enabled = new CountDownLatch(1);
+
+  @Before
+  public void setup() {
+    DeviceClient deviceClient = ClientStubs.stub(DeviceClient.class, (method, args) -> {
+      if (method.getName().equals("updateLastConnected")) {
+        if (failure.get() != null) {
+          throw failure.get();
+        }
+        updateCount.incrementAndGet();
+        updates.put((String) args[0], (Long) args[1]);
+      }
+      return true;
+    });
+
+    DeviceStore devices = new DeviceStore() {
+      @Override
+      public Device getDevice(String deviceName) {
+        return managed.get(deviceName);
+      }
+
+      @Override
+      public Device getDeviceById(String deviceId) {
+        return managed.values().stream().filter(d -> d.getId().equals(deviceId)).findAny()
+            .orElse(null);
+      }
+
+      @Override
+      public void addRemovalListener(Consumer<Device> listener) {
+        removed = listener;
+      }
+
+      @Override
+      public void setDeviceByIdOpState(String deviceId, OperatingState state) {
+        enableCount.incrementAndGet();
+        enabled.countDown();
+      }
+    };
+
+    metrics = new MetricsRegistry();
+    metrics.setEnabled(true);
+    tracker = new LastConnectedTracker();
+    ReflectionTestUtils.setField(tracker, "deviceClient", deviceClient);
+    ReflectionTestUtils.setField(tracker, "devices", devices);
+    ReflectionTestUtils.setField(tracker, "metrics", metrics);
+    // flushed by the tests
+    ReflectionTestUtils.setField(tracker, "flushInterval", TimeUnit.HOURS.toMillis(1));
+    tracker.init();
+  }
+
+  @After
+  public void cleanup() {
+    tracker.cleanup();
+  }
+
+  private Device manage(String name, OperatingState state) {
+    Device device = new Device();
+    device.setName(name);
+    device.setId(name.toLowerCase());
+    device.setOperatingState(state);
+    managed.put(name, device);
+    return device;
+  }
+
+  @Test
+  public void testCoalesced() {
+    Device device = manage("Chatty", OperatingState.ENABLED);
+    long before = System.currentTimeMillis();
+    for (int i = 0; i < 1000; i++) {
+      tracker.connected("Chatty");
+    }
+    assertEquals(0, updateCount.get());
+    assertEquals(1, tracker.getPendingCount());
+
+    tracker.flush();
+    assertEquals(1, updateCount.get());
+    assertTrue(updates.get(device.getId()) >= before);
+    assertEquals(0, tracker.getPendingCount());
+    assertEquals(1L, (long) metrics.getStatus().getCounters().get("last_connected_updates"));
+
+    // nothing new to send
+    tracker.flush();
+    assertEquals(1, updateCount.get());
+  }
+
+  @Test
+  public void testUnknownDevice() {
+    tracker.connected("Unknown");
+    tracker.flush();
+    assertEquals(0, updateCount.get());
+  }
+
+  @Test
+  public void testRetriedAfterFailure() {
+    manage("Chatty", OperatingState.ENABLED);
+    tracker.connected("Chatty");
+    failure.set(new IllegalStateException("metadata unavailable"));
+    tracker.flush();
+    assertEquals(1, tracker.getPendingCount());
+
+    failure.set(null);
+    tracker.flush();
+    assertEquals(1, updateCount.get());
+    assertEquals(0, tracker.getPendingCount());
+  }
+
+  @Test
+  public void testDisabledDeviceEnabledOnce() throws InterruptedException {
+    Device device = manage("Returning", OperatingState.DISABLED);
+    for (int i = 0; i < 100; i++) {
+      tracker.connected("Returning");
+    }
+
+    assertTrue(enabled.await(5, TimeUnit.SECONDS));
+    tracker.connected("Returning");
+    tracker.cleanup();
+    assertEquals(1, enableCount.get());
+    assertEquals(OperatingState.ENABLED, device.getOperatingState());
+  }
+
+  @Test
+  public void testPendingSentOnCleanup() {
+    manage("Chatty", OperatingState.ENABLED);
+    tracker.connected("Chatty");
+    tracker.cleanup();
+    assertEquals(1, updateCount.get());
+  }
+
+  @Test
+  public void testRemovedDeviceDropped() {
+    manage("Leaving", OperatingState.ENABLED);
+    tracker.connected("Leaving");
+    removed.accept(managed.remove("Leaving"));
+    assertEquals(0, tracker.getPendingCount());
+
+    tracker.flush();
+    assertEquals(0, updateCount.get());
+  }
+
+  @Test
+  public void testNotRetriedOnceGone() {
+    manage("Deleted", OperatingState.ENABLED);
+    tracker.connected("Deleted");
+    failure.set(new NotFoundException());
+    tracker.flush();
+    assertEquals(0, tracker.getPendingCount());
+
+    // nor when the device was removed while the update was failing
+    manage("Leaving", OperatingState.ENABLED);
+    tracker.connected("Leaving");
+    failure.set(new IllegalStateException("metadata unavailable"));
+    managed.remove("Leaving");
+    tracker.flush();
+    assertEquals(0, tracker.getPendingCount());
+  }
+}
@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright 2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.edgexfoundry.domain.LatencyStatus;
+import org.junit.Test;
+
+public class HistogramTest {
+
+  @Test
+  public void testBucketsCoverValues() {
+    Histogram histogram = new Histogram(4);
+    long[] values = {0, 1, 15, 16, 17, 31, 32, 1000, 123456789, 1L << 40};
+
+    for (long value : values) {
+      int index = histogram.index(value);
+      long highest = histogram.highestValue(index);
+      // a value lies in its bucket, and the bucket is no wider than 1/16 of it
+      assertTrue(value <= highest);
+      assertTrue(highest - value <= value / 16);
+      if (index > 0) {
+        assertTrue(histogram.highestValue(index - 1) < value);
+      }
+    }
+  }
+
+  @Test
+  public void testPercentiles() {
+    Histogram histogram = new Histogram(4);
+    for (long micros = 1; micros <= 1000; micros++) {
+      histogram.record(micros * 1000);
+    }
+
+    LatencyStatus status = histogram.status("test");
+    assertEquals(1000, status.getCount());
+    assertEquals(500.5, status.getMean(), 0.001);
+    assertEquals(500, status.getP50(), 500 / 16.0);
+    assertEquals(990, status.getP99(), 990 / 16.0);
+    assertEquals(999, status.getP999(), 999 / 16.0);
+    assertEquals(1000, status.getMax(), 0);
+  }
+
+  @Test
+  public void testEmpty() {
+    LatencyStatus status = new Histogram(3).status("empty");
+    assertEquals(0, status.getCount());
+    assertEquals(0, status.getP99(), 0);
+  }
+
+  @Test
+  public void testOutOfRange() {
+    Histogram histogram = new Histogram(3);
+    histogram.record(-5);
+    histogram.record(Long.MAX_VALUE);
+
+    LatencyStatus status = histogram.status("range");
+    assertEquals(2, status.getCount());
+    assertEquals(0, status.getP50(), 0);
+  }
+}
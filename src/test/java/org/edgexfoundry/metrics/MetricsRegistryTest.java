@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright 2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.edgexfoundry.domain.MetricsStatus;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class MetricsRegistryTest {
+
+  @Test
+  public void testRatesSharedByReaders() throws InterruptedException {
+    MetricsRegistry metrics = new MetricsRegistry();
+    metrics.setEnabled(true);
+    ReflectionTestUtils.setField(metrics, "rateWindow", 50L);
+    for (int i = 0; i < 100; i++) {
+      metrics.messageReceived("DataTopic");
+    }
+
+    // no complete window yet
+    assertTrue(metrics.getStatus().getMessageRates().isEmpty());
+
+    Thread.sleep(60);
+    double rate = metrics.getStatus().getMessageRates().get("DataTopic");
+    assertTrue(rate > 0);
+    // a second reader within the window sees the same rate rather than the few messages since
+    MetricsStatus status = metrics.getStatus();
+    assertEquals(rate, status.getMessageRates().get("DataTopic"), 0);
+    assertEquals(100L, (long) status.getMessages().get("DataTopic"));
+  }
+}
@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright 2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.mqtt;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+import org.edgexfoundry.ServiceFixture;
+import org.edgexfoundry.data.ProfileStore;
+import org.edgexfoundry.domain.meta.Device;
+import org.edgexfoundry.domain.meta.DeviceProfile;
+import org.edgexfoundry.domain.meta.PropertyValue;
+import org.edgexfoundry.handler.MqttHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/*
+ * Cost of each stage of an incoming device message, with the metadata and core data clients
+ * stubbed out: decoding the payload, the whole of MqttHandler.processJson from a decoded or a raw
+ * payload to the event posted to core data, the value descriptor lookup made for each operation
+ * and the general parse of a word ordered value.
+ *
+ * Run with the other benchmarks from the project root with: mvn -P benchmark verify, adding
+ * -Dbenchmark=IngestBenchmark to run these alone
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngestBenchmark {
+
+  private static final int DEVICES = 64;
+  private static final String PROFILE = "MQTTTestDeviceProfile.yml";
+
+  // as sent by TestMqttDeviceSendor
+  private static final String PAYLOAD = "{\"name\":\"%s\",\"randnum\":\"%s\"}";
+
+  private final JsonParser parser = new JsonParser();
+  private ServiceFixture service;
+  private MqttHandler handler;
+  private ProfileStore profiles;
+  private ObjectTransform transform;
+  private PropertyValue wordValue;
+  private String[] payloads;
+  private JsonObject[] messages;
+  private int next;
+
+  @Setup
+  public void setup() throws IOException {
+    service = new ServiceFixture();
+    DeviceProfile profile = ServiceFixture.loadProfile(PROFILE);
+    handler = service.getHandler();
+    profiles = service.getProfiles();
+    transform = service.getTransform();
+
+    payloads = new String[DEVICES];
+    messages = new JsonObject[DEVICES];
+    for (int i = 0; i < DEVICES; i++) {
+      Device device = service.addDevice("IngestDevice" + i, profile, null);
+      payloads[i] = String.format(PAYLOAD, device.getName(), String.valueOf(i * 12.5));
+      messages[i] = parser.parse(payloads[i]).getAsJsonObject();
+    }
+
+    wordValue = ObjectTransformTest
+        .object("{ type: \"Integer\", size: \"8\", word: \"2\", LSB: \"true\" }").getProperties()
+        .getValue();
+  }
+
+  @TearDown
+  public void cleanup() {
+    service.close();
+  }
+
+  private int nextDevice() {
+    return next++ & (DEVICES - 1);
+  }
+
+  @Benchmark
+  public JsonObject decode() {
+    return parser.parse(payloads[nextDevice()]).getAsJsonObject();
+  }
+
+  @Benchmark
+  public void processJson() {
+    handler.processJson(messages[nextDevice()]);
+  }
+
+  @Benchmark
+  public void processPayload() {
+    handler.processJson(payloads[nextDevice()]);
+  }
+
+  @Benchmark
+  public boolean descriptorExists() {
+    return profiles.descriptorExists("randnum");
+  }
+
+  @Benchmark
+  public BigInteger parse() {
+    return transform.parse(wordValue, "0x12345678");
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options options =
+        new OptionsBuilder().include(IngestBenchmark.class.getSimpleName()).build();
+    new Runner(options).run();
+  }
+}
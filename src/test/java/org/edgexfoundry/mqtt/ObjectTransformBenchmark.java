@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright 2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.mqtt;
+
+import java.util.concurrent.TimeUnit;
+
+import org.edgexfoundry.data.ObjectStore;
+import org.edgexfoundry.domain.MqttObject;
+import org.edgexfoundry.domain.ReadingValue;
+import org.edgexfoundry.domain.meta.PropertyValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/*
+ * Cost of transforming one reading with the general BigInteger transform and with the transform
+ * compiled with the object, and of a burst of samples one at a time and as a batch. Run with
+ * -prof gc to compare allocation per operation.
+ *
+ * Run from the project root with: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.edgexfoundry.mqtt.ObjectTransformBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ObjectTransformBenchmark {
+
+  @Param({"{ type: \"Float\", scale: \"0.1\", offset: \"-40.0\" }",
+      "{ type: \"Integer\", size: \"4\", LSB: \"true\" }",
+      "{ type: \"Float\", size: \"8\", word: \"2\", LSB: \"false\", mask: \"0x00FFFFFF\","
+          + " scale: \"0.01\" }"})
+  public String property;
+
+  // decimal so that it is valid for both the float and the decoded properties
+  private static final String INPUT = "4660";
+
+  // one burst of samples, as sent by an array attribute
+  private static final int SAMPLES = 256;
+
+  private ObjectTransform transform;
+  private MqttObject object;
+  private PropertyValue value;
+  private String[] samples;
+
+  @Setup
+  public void setup() {
+    ObjectStore objectCache = new ObjectStore();
+    objectCache.setTransformData(true);
+    transform = new ObjectTransform();
+    ReflectionTestUtils.setField(transform, "objectCache", objectCache);
+    object = ObjectTransformTest.object(property);
+    value = object.getProperties().getValue();
+    samples = new String[SAMPLES];
+    for (int i = 0; i < SAMPLES; i++) {
+      samples[i] = String.valueOf(i * 97);
+    }
+  }
+
+  @Benchmark
+  public String general() {
+    return transform.transform(value, INPUT);
+  }
+
+  @Benchmark
+  public String compiled() {
+    return transform.transform(object, INPUT);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SAMPLES)
+  public void compiledEach(Blackhole blackhole) {
+    for (String sample : samples) {
+      blackhole.consume(transform.transformValue(object, sample));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SAMPLES)
+  public ReadingValue[] compiledBatch() {
+    return transform.transformValues(object, samples);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options options = new OptionsBuilder()
+        .include(ObjectTransformBenchmark.class.getSimpleName()).build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright 2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.mqtt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.edgexfoundry.data.ObjectStore;
+import org.edgexfoundry.domain.MqttObject;
+import org.edgexfoundry.domain.ReadingValue;
+import org.edgexfoundry.domain.meta.DeviceObject;
+import org.edgexfoundry.domain.meta.PropertyValue;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.yaml.snakeyaml.Yaml;
+
+/*
+ * Golden corpus for the compiled transform: every property and input below must give exactly the
+ * result (or the exception) of the general BigInteger transform.
+ */
+public class ObjectTransformTest {
+
+  // property values in the form they take in a device profile
+  static final String[] PROPERTIES = {"{ type: \"Float\", readWrite: \"R\" }",
+      "{ type: \"Integer\", readWrite: \"R\" }", "{ type: \"String\", readWrite: \"R\" }",
+      "{ type: \"Boolean\", readWrite: \"RW\" }",
+      "{ type: \"Float\", scale: \"0.1\", offset: \"-40.0\" }",
+      "{ type: \"Integer\", scale: \"10\", offset: \"5\" }",
+      "{ type: \"i\", base: \"2\" }", "{ type: \"f\", base: \"10\", scale: \"0.5\" }",
+      "{ type: \"Integer\", size: \"4\", LSB: \"true\" }",
+      "{ type: \"Integer\", size: \"4\", LSB: \"false\" }",
+      "{ type: \"Integer\", size: \"4\", LSB: \"true\", signed: false }",
+      "{ type: \"Integer\", size: \"8\", word: \"2\", LSB: \"true\" }",
+      "{ type: \"Integer\", size: \"8\", word: \"4\", LSB: \"false\" }",
+      "{ type: \"Integer\", size: \"8\", word: \"1\", LSB: \"true\", signed: false }",
+      "{ type: \"Integer\", size: \"2\", LSB: \"false\" }",
+      "{ type: \"Integer\", size: \"3\", LSB: \"true\" }",
+      "{ type: \"Integer\", size: \"4\", LSB: \"false\", mask: \"0x0FF0\", shift: \"4\" }",
+      "{ type: \"Integer\", size: \"4\", LSB: \"true\", mask: \"0xFF00\", shift: \"8\","
+          + " signed: false }",
+      "{ type: \"Float\", size: \"4\", LSB: \"false\", scale: \"0.01\", offset: \"-273.15\" }",
+      "{ type: \"Float\", size: \"8\", LSB: \"true\", scale: \"0.001\" }",
+      "{ type: \"Float\", size: \"4\", LSB: \"false\", base: \"2\", signed: false }",
+      "{ type: \"Integer\", size: \"12\", word: \"2\", LSB: \"false\", scale: \"3\" }",
+      "{ type: \"Integer\", size: \"16\", LSB: \"false\" }",
+      "{ type: \"Integer\", size: \"4\", LSB: \"false\", mask: \"0xFFFFFFFFFFFFFFFF\" }",
+      "{ type: \"Integer\", size: \"0\", LSB: \"false\" }",
+      "{ type: \"Integer\", size: \"4\", word: \"0\", LSB: \"false\" }",
+      "{ type: \"Integer\", size: \"four\", LSB: \"false\" }"};
+
+  static final String[] INPUTS = {"0", "1", "7", "10", "255", "4660", "32767", "32768", "65535",
+      "65536", "-1", "-32768", "2147483647", "-2147483648", "0x0000", "0x1234", "0xFFFF",
+      "0x8000", "0x7fff", "0xABCD", "0x12345678", "0xDEADBEEF", "0x0123456789ABCD",
+      "0x0123456789ABCDEF", "0x", "0x12", "0x123", "010", "+5", "#1F", "1.5", "-0", "0.0", "abc",
+      "", "2147483648", "1e3", "NaN", "-12.75", "3.4028235E38"};
+
+  private ObjectStore objectCache;
+  private ObjectTransform transform;
+
+  @Before
+  public void setUp() {
+    objectCache = new ObjectStore();
+    transform = new ObjectTransform();
+    ReflectionTestUtils.setField(transform, "objectCache", objectCache);
+  }
+
+  @Test
+  public void testCompiledMatchesGeneral() {
+    List<String> mismatches = new ArrayList<>();
+
+    for (boolean transformData : Arrays.asList(true, false)) {
+      objectCache.setTransformData(transformData);
+
+      for (String property : PROPERTIES) {
+        MqttObject object = object(property);
+        assertNotNull(object.getTransform());
+
+        for (String input : INPUTS) {
+          String expected = outcome(() -> transform.transform(
+              object.getProperties().getValue(), input));
+          String actual = outcome(() -> transform.transform(object, input));
+
+          if (!expected.equals(actual)) {
+            mismatches.add(property + " transformData=" + transformData + " input=\"" + input
+                + "\": expected " + expected + " but was " + actual);
+          }
+        }
+      }
+    }
+
+    assertEquals(String.join("\n", mismatches), 0, mismatches.size());
+  }
+
+  @Test
+  public void testBatchMatchesSingle() {
+    for (boolean transformData : Arrays.asList(true, false)) {
+      objectCache.setTransformData(transformData);
+
+      for (String property : PROPERTIES) {
+        MqttObject object = object(property);
+        List<String> samples = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+
+        // a bad sample fails the whole batch, so only batch the samples that transform alone
+        for (String input : INPUTS) {
+          String value = outcome(() -> transform.transform(object, input));
+          if (!value.endsWith("Exception")) {
+            samples.add(input);
+            expected.add(value);
+          }
+        }
+
+        ReadingValue[] values = transform.transformValues(object, samples.toArray(new String[0]));
+        assertEquals(property, expected.size(), values.length);
+        for (int i = 0; i < values.length; i++) {
+          assertEquals(property + " input=\"" + samples.get(i) + "\"", expected.get(i),
+              values[i].toString());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testUncompilableProperty() {
+    PropertyValue value = new Yaml().loadAs("{ type: \"Integer\", size: \"4\", LSB: \"true\","
+        + " shift: \"x\" }", PropertyValue.class);
+    assertNull(CompiledTransform.compile(value).transform("0x1234", true));
+  }
+
+  static MqttObject object(String property) {
+    DeviceObject object = new Yaml().loadAs("{ name: \"golden\", properties: { value: "
+        + property + " } }", DeviceObject.class);
+    return new MqttObject(object);
+  }
+
+  private static String outcome(Transform call) {
+    try {
+      return call.apply();
+    } catch (Exception e) {
+      return e.getClass().getName();
+    }
+  }
+
+  private interface Transform {
+    String apply();
+  }
+}
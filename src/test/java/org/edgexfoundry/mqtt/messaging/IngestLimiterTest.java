@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright 2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.mqtt.messaging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.edgexfoundry.data.DeviceStore;
+import org.edgexfoundry.domain.meta.Device;
+import org.edgexfoundry.domain.meta.DeviceProfile;
+import org.edgexfoundry.metrics.MetricsRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class IngestLimiterTest {
+
+  private static final String PROFILE = "Thermostat";
+
+  private final Map<String, Device> managed = new HashMap<>();
+  private final MockEnvironment environment = new MockEnvironment();
+  private MetricsRegistry metrics;
+  private IngestLimiter limiter;
+  private Consumer<Device> removed;
+
+  @Before
+  public void setup() {
+    manage("Noisy", PROFILE);
+    manage("Quiet", PROFILE);
+
+    metrics = new MetricsRegistry();
+    metrics.setEnabled(true);
+    limiter = new IngestLimiter();
+    ReflectionTestUtils.setField(limiter, "devices", new DeviceStore() {
+      @Override
+      public Device getDevice(String deviceName) {
+        return managed.get(deviceName);
+      }
+
+      @Override
+      public void addRemovalListener(Consumer<Device> listener) {
+        removed = listener;
+      }
+    });
+    ReflectionTestUtils.setField(limiter, "metrics", metrics);
+    ReflectionTestUtils.setField(limiter, "environment", environment);
+    ReflectionTestUtils.setField(limiter, "policy", "drop");
+    limiter.init();
+  }
+
+  private Device manage(String name, String profileName) {
+    DeviceProfile profile = new DeviceProfile();
+    profile.setName(profileName);
+    Device device = new Device();
+    device.setName(name);
+    device.setProfile(profile);
+    managed.put(name, device);
+    return device;
+  }
+
+  private void limit(double rate, double burst) {
+    ReflectionTestUtils.setField(limiter, "rateLimit", rate);
+    ReflectionTestUtils.setField(limiter, "rateBurst", burst);
+  }
+
+  private int admitted(String deviceName, int messages) {
+    int admitted = 0;
+    for (int i = 0; i < messages; i++) {
+      if (limiter.admit(deviceName)) {
+        admitted++;
+      }
+    }
+    return admitted;
+  }
+
+  @Test
+  public void testUnlimitedByDefault() {
+    assertEquals(1000, admitted("Noisy", 1000));
+    // no bucket to keep for a device without a limit
+    assertTrue(limiter.getStatus().isEmpty());
+  }
+
+  @Test
+  public void testBurstThenDrop() {
+    limit(1, 20);
+
+    // the burst, and at most one more if a second passes
+    int admitted = admitted("Noisy", 1000);
+    assertTrue(admitted >= 20 && admitted <= 21);
+    assertEquals(1000 - admitted,
+        (long) metrics.getStatus().getCounters().get("messages_throttled"));
+
+    // another device has its own bucket
+    assertEquals(20, admitted("Quiet", 20));
+  }
+
+  @Test
+  public void testProfileLimit() {
+    environment.setProperty("ingest.rate.limit." + PROFILE, "1");
+    environment.setProperty("ingest.rate.burst." + PROFILE, "5");
+    manage("Other", "Pump");
+
+    assertTrue(admitted("Noisy", 100) <= 6);
+    // profiles without their own limit use the default, none
+    assertEquals(100, admitted("Other", 100));
+  }
+
+  @Test
+  public void testSamplePolicy() {
+    limit(1, 10);
+    ReflectionTestUtils.setField(limiter, "policy", "sample");
+    ReflectionTestUtils.setField(limiter, "sampleEvery", 10);
+
+    // the burst, then one in ten of the 990 over it
+    int admitted = admitted("Noisy", 1000);
+    assertTrue(admitted >= 109 && admitted <= 110);
+  }
+
+  @Test
+  public void testUnmanagedDevice() {
+    limit(1, 1);
+    assertEquals(100, admitted("Unknown", 100));
+    assertEquals(100, admitted(null, 100));
+  }
+
+  @Test
+  public void testProfileChangeResetsBucket() {
+    limit(1, 5);
+    admitted("Noisy", 100);
+    manage("Noisy", "Pump");
+    assertEquals(5, admitted("Noisy", 5));
+  }
+
+  @Test
+  public void testRemovedDevice() {
+    limit(1, 5);
+    admitted("Noisy", 10);
+    admitted("Quiet", 10);
+    assertEquals(2, limiter.getStatus().size());
+
+    removed.accept(managed.remove("Noisy"));
+    assertEquals(1, limiter.getStatus().size());
+    assertEquals("Quiet", limiter.getStatus().get(0).getDevice());
+  }
+}
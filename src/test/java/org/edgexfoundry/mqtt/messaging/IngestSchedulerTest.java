@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright 2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.mqtt.messaging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.edgexfoundry.metrics.MetricsRegistry;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class IngestSchedulerTest {
+
+  private IngestScheduler scheduler;
+
+  private IngestScheduler start(int lanes, int capacity) {
+    scheduler = new IngestScheduler();
+    ReflectionTestUtils.setField(scheduler, "metrics", new MetricsRegistry());
+    ReflectionTestUtils.setField(scheduler, "laneCount", lanes);
+    ReflectionTestUtils.setField(scheduler, "laneCapacity", capacity);
+    scheduler.init();
+    return scheduler;
+  }
+
+  @After
+  public void cleanup() {
+    if (scheduler != null) {
+      scheduler.cleanup();
+    }
+  }
+
+  // wait for everything queued on the lane of the key so far to run
+  private void drain(String key) throws InterruptedException {
+    CountDownLatch done = new CountDownLatch(1);
+    scheduler.submit(key, done::countDown);
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testPinnedInOrder() throws InterruptedException {
+    start(4, 1000);
+    List<String> threads = new CopyOnWriteArrayList<>();
+    List<Integer> order = new CopyOnWriteArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      int sequence = i;
+      scheduler.submit("Device7", () -> {
+        threads.add(Thread.currentThread().getName());
+        order.add(sequence);
+      });
+    }
+    drain("Device7");
+
+    assertEquals(500, order.size());
+    for (int i = 0; i < order.size(); i++) {
+      assertEquals(i, (int) order.get(i));
+    }
+    assertEquals(1, threads.stream().distinct().count());
+    assertEquals("ingest-lane-" + scheduler.laneFor("Device7"), threads.get(0));
+  }
+
+  @Test
+  public void testDevicesSpread() {
+    start(4, 10);
+    boolean[] used = new boolean[4];
+    for (int i = 0; i < 100; i++) {
+      int lane = scheduler.laneFor("Device" + i);
+      assertEquals(lane, scheduler.laneFor("Device" + i));
+      used[lane] = true;
+    }
+    for (boolean lane : used) {
+      assertTrue(lane);
+    }
+  }
+
+  @Test
+  public void testNullKey() throws InterruptedException {
+    start(4, 10);
+    assertEquals(0, scheduler.laneFor(null));
+
+    List<String> threads = new CopyOnWriteArrayList<>();
+    scheduler.submit(null, () -> threads.add(Thread.currentThread().getName()));
+    drain(null);
+    assertEquals("ingest-lane-0", threads.get(0));
+  }
+
+  @Test
+  public void testBackPressure() throws InterruptedException {
+    start(1, 2);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch running = new CountDownLatch(1);
+    scheduler.submit("Device", () -> {
+      running.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    assertTrue(running.await(5, TimeUnit.SECONDS));
+
+    // fills the lane
+    scheduler.submit("Device", () -> {});
+    scheduler.submit("Device", () -> {});
+    assertEquals(2, scheduler.getQueueDepth());
+
+    CountDownLatch queued = new CountDownLatch(1);
+    Thread callback = new Thread(() -> {
+      scheduler.submit("Device", () -> {});
+      queued.countDown();
+    });
+    callback.start();
+    assertFalse("submit to a full lane returned", queued.await(200, TimeUnit.MILLISECONDS));
+
+    release.countDown();
+    assertTrue(queued.await(5, TimeUnit.SECONDS));
+    drain("Device");
+    assertEquals(0, scheduler.getQueueDepth());
+  }
+
+  @Test
+  public void testFailedTaskKeepsLane() throws InterruptedException {
+    start(1, 10);
+    scheduler.submit("Device", () -> {
+      throw new IllegalStateException("bad message");
+    });
+    // the lane is still taking tasks
+    drain("Device");
+    drain("Device");
+    assertTrue(scheduler.getStatus().get(0).getProcessed() >= 2);
+  }
+}
@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright 2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.mqtt.messaging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LogSamplerTest {
+
+  @Test
+  public void testOneInEvery() {
+    LogSampler sampler = new LogSampler(10, 0);
+    int logged = 0;
+    for (int i = 0; i < 1000; i++) {
+      if (sampler.sample()) {
+        logged++;
+      }
+    }
+    assertEquals(100, logged);
+  }
+
+  @Test
+  public void testRateLimit() {
+    LogSampler sampler = new LogSampler(1, 5);
+    int logged = 0;
+    for (int i = 0; i < 1000; i++) {
+      if (sampler.sample()) {
+        logged++;
+      }
+    }
+    // the loop may cross into the next second once
+    assertTrue(logged >= 5 && logged <= 10);
+  }
+
+  @Test
+  public void testDisabled() {
+    LogSampler sampler = new LogSampler(0, 0);
+    for (int i = 0; i < 100; i++) {
+      assertFalse(sampler.sample());
+    }
+  }
+
+  @Test
+  public void testFormatCountsSkipped() {
+    LogSampler sampler = new LogSampler(3, 0);
+    sampler.sample();
+    sampler.sample();
+    assertTrue(sampler.sample());
+    assertEquals("arrived: {} (2 not logged)", sampler.format("arrived: ", "{}".getBytes()));
+
+    sampler.sample();
+    sampler.sample();
+    assertTrue(sampler.sample());
+    assertEquals("arrived: {} (2 not logged)", sampler.format("arrived: ", "{}".getBytes()));
+  }
+}
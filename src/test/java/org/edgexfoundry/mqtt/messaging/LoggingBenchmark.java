@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Copyright 2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.mqtt.messaging;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.PatternLayout;
+import org.apache.log4j.WriterAppender;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.edgexfoundry.ServiceFixture;
+import org.edgexfoundry.domain.meta.Device;
+import org.edgexfoundry.domain.meta.DeviceProfile;
+import org.edgexfoundry.handler.MqttHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.gson.JsonParser;
+
+/*
+ * Cost of logging on the ingest path: an incoming message from the listener callback to the event
+ * posted to core data, run on the calling thread, with the service logging at each level to an
+ * appender that formats every line and discards it. Payloads are sampled as configured by default,
+ * one in 1000 and at most one a second. everyPayload logs each payload at info as the listener
+ * used to, for comparison.
+ *
+ * Logging at INFO should cost under 5% over OFF. Run from the project root with:
+ * mvn -P benchmark verify -Dbenchmark=LoggingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 10, time = 1)
+@Measurement(iterations = 20, time = 2)
+@Fork(5)
+public class LoggingBenchmark {
+
+  private static final int DEVICES = 64;
+  private static final String PROFILE = "MQTTTestDeviceProfile.yml";
+  private static final String TOPIC = "DataTopic";
+  private static final String PAYLOAD = "{\"name\":\"%s\",\"randnum\":\"%s\"}";
+
+  @Param({"OFF", "INFO", "DEBUG"})
+  private String level;
+
+  private final Logger root = Logger.getLogger("org.edgexfoundry");
+  private final Logger listenerLogger = Logger.getLogger(IncomingListener.class);
+  private WriterAppender appender;
+  private Level previousLevel;
+  private boolean previousAdditivity;
+  private ServiceFixture service;
+  private IncomingListener listener;
+  private MqttMessage[] messages;
+  private int next;
+
+  @Setup
+  public void setup() throws IOException {
+    service = new ServiceFixture();
+    DeviceProfile profile = ServiceFixture.loadProfile(PROFILE);
+    MqttHandler handler = service.getHandler();
+    JsonParser parser = new JsonParser();
+
+    messages = new MqttMessage[DEVICES];
+    for (int i = 0; i < DEVICES; i++) {
+      Device device = service.addDevice("LoggingDevice" + i, profile, null);
+      messages[i] = new MqttMessage(
+          String.format(PAYLOAD, device.getName(), String.valueOf(i * 12.5)).getBytes());
+    }
+
+    listener = new IncomingListener();
+    ReflectionTestUtils.setField(listener, "incomingMqttTopic", TOPIC);
+    ReflectionTestUtils.setField(listener, "metrics", service.getMetrics());
+    ReflectionTestUtils.setField(listener, "payloads", new LogSampler(1000, 1));
+    // handled on the calling thread rather than queued on an ingest lane
+    ReflectionTestUtils.setField(listener, "processor", (MessageProcessor) payload -> handler
+        .processJson(parser.parse(new String(payload)).getAsJsonObject()));
+
+    appender = new WriterAppender(new PatternLayout("%d %-5p [%t] %c - %m%n"), new Writer() {
+      @Override
+      public void write(char[] buffer, int offset, int length) {}
+
+      @Override
+      public void flush() {}
+
+      @Override
+      public void close() {}
+    });
+    previousLevel = root.getLevel();
+    previousAdditivity = root.getAdditivity();
+    root.addAppender(appender);
+    root.setAdditivity(false);
+    root.setLevel(Level.toLevel(level));
+  }
+
+  @TearDown
+  public void cleanup() {
+    root.removeAppender(appender);
+    root.setAdditivity(previousAdditivity);
+    root.setLevel(previousLevel);
+    service.close();
+  }
+
+  private MqttMessage nextMessage() {
+    return messages[next++ & (DEVICES - 1)];
+  }
+
+  @Benchmark
+  public void messageArrived() {
+    listener.messageArrived(TOPIC, nextMessage());
+  }
+
+  @Benchmark
+  public void everyPayload() {
+    MqttMessage message = nextMessage();
+    listenerLogger.info("Incoming message arrived:  " + new String(message.getPayload()));
+    listener.messageArrived(TOPIC, message);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options options =
+        new OptionsBuilder().include(LoggingBenchmark.class.getSimpleName()).build();
+    new Runner(options).run();
+  }
+}
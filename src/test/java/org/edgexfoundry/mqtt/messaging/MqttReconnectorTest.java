@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright 2017 Dell Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * @microservice: device-mqtt
+ * @author: Jim White, Dell
+ * @version: 1.0.0
+ *******************************************************************************/
+
+package org.edgexfoundry.mqtt.messaging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.edgexfoundry.domain.ConnectionStatus;
+import org.junit.Test;
+
+public class MqttReconnectorTest {
+
+  @Test
+  public void testBackoffBounds() {
+    MqttReconnector reconnector = new MqttReconnector("test", () -> true, 100, 5000);
+    try {
+      for (int attempt = 0; attempt < 40; attempt++) {
+        long backoff = Math.min(100L << Math.min(attempt, 20), 5000);
+        for (int i = 0; i < 200; i++) {
+          long delay = reconnector.delay(attempt);
+          assertTrue(attempt + ": " + delay, delay >= backoff / 2 && delay <= backoff);
+        }
+      }
+    } finally {
+      reconnector.shutdown();
+    }
+  }
+
+  @Test
+  public void testJitterSpread() {
+    MqttReconnector reconnector = new MqttReconnector("test", () -> true, 1000, 1000);
+    try {
+      long min = Long.MAX_VALUE;
+      long max = Long.MIN_VALUE;
+      for (int i = 0; i < 1000; i++) {
+        long delay = reconnector.delay(0);
+        min = Math.min(min, delay);
+        max = Math.max(max, delay);
+      }
+      // spread over most of the 500-1000 ms range rather than one value
+      assertTrue(min < 600);
+      assertTrue(max > 900);
+    } finally {
+      reconnector.shutdown();
+    }
+  }
+
+  @Test
+  public void testRetriedUntilConnected() throws InterruptedException {
+    AtomicInteger calls = new AtomicInteger();
+    CountDownLatch connected = new CountDownLatch(1);
+    MqttReconnector reconnector = new MqttReconnector("test", () -> {
+      if (calls.incrementAndGet() < 3) {
+        throw new IllegalStateException("broker down");
+      }
+      connected.countDown();
+      return true;
+    }, 1, 10);
+
+    try {
+      reconnector.connectionLost();
+      // already reconnecting, no second loop
+      reconnector.connectionLost();
+      assertTrue(connected.await(5, TimeUnit.SECONDS));
+      Thread.sleep(50);
+
+      ConnectionStatus status = reconnector.getStatus();
+      assertEquals(2, status.getDisconnects());
+      assertEquals(3, status.getReconnectAttempts());
+      assertEquals(1, status.getReconnects());
+      assertEquals(3, calls.get());
+      assertTrue(status.isConnected());
+    } finally {
+      reconnector.shutdown();
+    }
+  }
+}